@@ -30,7 +30,9 @@ public interface Client2Space extends java.rmi.Remote {
 	 * Space.
 	 * 
 	 * This method blocks until a {@link api.Result Result} object containing
-	 * the result of the task is available to be returned to the client.
+	 * the result of the task is available to be returned to the client. If a
+	 * task of the job throws an exception, the job fails at once, and its
+	 * result carries the exception (see {@link api.Result#getFailure()}).
 	 * 
 	 * @param task
 	 *            task to be added to the Compute Space
@@ -49,4 +51,125 @@ public interface Client2Space extends java.rmi.Remote {
 	 */
 	Result<?> compute(Task<?> task, Shared<?> shared)
 			throws java.rmi.RemoteException;
+
+	/**
+	 * Starts a job in the compute space without waiting for it to finish, so
+	 * that a client can keep many jobs in flight without blocking a thread
+	 * for each of them. The result of the job is fetched later with
+	 * {@link #poll(long)} or {@link #await(long, long)}. As with
+	 * {@link #compute(Task, Shared)}, the result of a job one of whose tasks
+	 * has thrown an exception carries the exception.
+	 * 
+	 * @param task
+	 *            Root task of the job
+	 * @param shared
+	 *            Shared object to be used to broadcast messages across workers
+	 *            in the compute space for this job
+	 * @return ID of the job, by which its result is fetched
+	 * @throws java.rmi.RemoteException
+	 *             Thrown if there is no computer to execute the job
+	 */
+	long submit(Task<?> task, Shared<?> shared)
+			throws java.rmi.RemoteException;
+
+	/**
+	 * Starts a job as {@link #submit(Task, Shared)} does, and streams every
+	 * better shared object found by the job's tasks to a listener while the
+	 * job is running
+	 * 
+	 * @param task
+	 *            Root task of the job
+	 * @param shared
+	 *            Shared object to be used to broadcast messages across workers
+	 *            in the compute space for this job
+	 * @param listener
+	 *            Remote object to be told of better shared objects. It may be
+	 *            called before this method returns.
+	 * @return ID of the job, by which its result is fetched
+	 * @throws java.rmi.RemoteException
+	 *             Thrown if there is no computer to execute the job
+	 */
+	long submit(Task<?> task, Shared<?> shared, SharedListener listener)
+			throws java.rmi.RemoteException;
+
+	/**
+	 * Starts a job as {@link #submit(Task, Shared, SharedListener)} does, and
+	 * stops it early once it has run for a given time, or once its best
+	 * solution has been proven to be close enough to the optimum. The shared
+	 * object of such a job must be numeric, and its tasks search for a
+	 * minimum by branch-and-bound.
+	 * 
+	 * The lower bound on the optimum is the lowest lower bound (see
+	 * {@link api.Task#getLowerBound()}) over the unfinished tasks of the job.
+	 * A stopped job has its unfinished tasks purged, and its result carries
+	 * no value. Its shared object (see {@link api.Result#getShared()}) holds
+	 * the best solution found, and {@link api.Result#getLowerBound()} the
+	 * lower bound proven when it was stopped.
+	 * 
+	 * @param task
+	 *            Root task of the job
+	 * @param shared
+	 *            Shared object to be used to broadcast messages across workers
+	 *            in the compute space for this job
+	 * @param listener
+	 *            Remote object to be told of better shared objects, or null
+	 * @param timeLimitMillis
+	 *            Longest time the job may run, in milliseconds from its
+	 *            submission, or Long.MAX_VALUE
+	 * @param targetGap
+	 *            Largest relative gap (value of the shared object - lower
+	 *            bound) / value of the shared object at which the job is
+	 *            stopped, or 0 to search until the optimum has been proven
+	 * @return ID of the job, by which its result is fetched
+	 * @throws java.rmi.RemoteException
+	 *             Thrown if there is no computer to execute the job
+	 */
+	long submit(Task<?> task, Shared<?> shared, SharedListener listener,
+			long timeLimitMillis, double targetGap)
+			throws java.rmi.RemoteException;
+
+	/**
+	 * Returns the result of a job if it has finished, without blocking. The
+	 * space forgets the job once its result has been returned.
+	 * 
+	 * @param jobId
+	 *            ID returned by {@link #submit(Task, Shared)}
+	 * @return Result of the root task of the job, or null if the job has not
+	 *         finished yet
+	 * @throws java.rmi.RemoteException
+	 * @throws IllegalArgumentException
+	 *             If the space knows no job with the ID, because it has been
+	 *             cancelled or its result has been returned already
+	 */
+	Result<?> poll(long jobId) throws java.rmi.RemoteException;
+
+	/**
+	 * Waits for a job to finish and returns its result. The space forgets the
+	 * job once its result has been returned.
+	 * 
+	 * @param jobId
+	 *            ID returned by {@link #submit(Task, Shared)}
+	 * @param timeoutMillis
+	 *            Longest time to wait, in milliseconds
+	 * @return Result of the root task of the job, or null if the job has not
+	 *         finished within the timeout or has been cancelled meanwhile
+	 * @throws java.rmi.RemoteException
+	 * @throws IllegalArgumentException
+	 *             If the space knows no job with the ID, because it has been
+	 *             cancelled or its result has been returned already
+	 */
+	Result<?> await(long jobId, long timeoutMillis)
+			throws java.rmi.RemoteException;
+
+	/**
+	 * Cancels a job. Its tasks which are waiting are dropped, and those which
+	 * are running are cut short by their computers.
+	 * 
+	 * @param jobId
+	 *            ID returned by {@link #submit(Task, Shared)}
+	 * @return true if the job was still running, false if it had finished or
+	 *         is not known to the space
+	 * @throws java.rmi.RemoteException
+	 */
+	boolean cancel(long jobId) throws java.rmi.RemoteException;
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package api;
 
 import java.util.List;
 
+import system.Shared;
+
 /**
  * Describes the result obtained upon computation of a remote {@link api.Task Task}
  * 
@@ -34,6 +36,56 @@ public interface Result<T> {
 	
 	void setSubTasks(List<Task<T>> subTasks);
 
+	/**
+	 * @return Returns the time taken by the computer to execute the task that
+	 *         produced this result, in nanoseconds
+	 */
+	long getTaskRunTime();
+
+	/**
+	 * Sets the time taken by the computer to execute the task that produced
+	 * this result, in nanoseconds
+	 */
+	void setTaskRunTime(long taskRunTime);
+
+	/**
+	 * @return Returns the best shared object known to the computer that
+	 *         produced this result, or null if it has none
+	 */
+	Shared<?> getShared();
+
+	/**
+	 * Sets the shared object which travels back to the compute space along
+	 * with this result
+	 */
+	void setShared(Shared<?> shared);
+
+	/**
+	 * @return Returns the lower bound on the optimal value of a job which the
+	 *         compute space has proven by the time it returned this result of
+	 *         the job, or Double.NEGATIVE_INFINITY if it has proven none
+	 */
+	double getLowerBound();
+
+	/**
+	 * Sets the lower bound on the optimal value of a job proven by the compute
+	 * space
+	 */
+	void setLowerBound(double lowerBound);
+
+	/**
+	 * @return Returns the exception thrown by the task that produced this
+	 *         result, or null if the task completed normally. The compute
+	 *         space fails the task's job, and the result of the job carries
+	 *         the exception.
+	 */
+	Throwable getFailure();
+
+	/**
+	 * Sets the exception thrown by the task that produced this result
+	 */
+	void setFailure(Throwable failure);
+
 
 	
 }
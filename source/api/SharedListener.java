@@ -0,0 +1,35 @@
+package api;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+import system.Shared;
+
+/**
+ * Implemented by clients which want to be told of every better shared object
+ * of a job while the job is running. For example, in the branch-and-bound
+ * Travelling Salesman Problem, each shared object holds a better tour, so a
+ * client can use a good tour long before the optimal one has been proven, or
+ * cancel the job once a tour is good enough.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public interface SharedListener extends Remote {
+
+	/**
+	 * Called by the compute space whenever it has accepted a better shared
+	 * object for the job. Calls for a job are never concurrent. A shared object
+	 * which is superseded before it could be delivered is skipped, so the last
+	 * call always carries the best shared object.
+	 * 
+	 * @param jobId
+	 *            ID of the job, as returned by
+	 *            {@link api.Client2Space#submit(Task, Shared, SharedListener)}
+	 * @param shared
+	 *            Better shared object of the job
+	 * @throws RemoteException
+	 */
+	void sharedChanged(long jobId, Shared<?> shared) throws RemoteException;
+}
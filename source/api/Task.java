@@ -57,10 +57,10 @@ import system.Shared;
  * 			List&lt;Task&lt;Integer&gt;&gt; subTasks = new Vector&lt;Task&lt;Integer&gt;&gt;();
  * 
  * 			// Creating new subtasks
- * 			subTasks.add(new FibonacciTask(n - 1, Task.Status.DECOMPOSE, id,
- * 					this.getId()));
- * 			subTasks.add(new FibonacciTask(n - 2, Task.Status.DECOMPOSE, id,
- * 					this.getId()));
+ * 			subTasks.add(new FibonacciTask(n - 1, Task.Status.DECOMPOSE,
+ * 					UNASSIGNED_ID, this.getId()));
+ * 			subTasks.add(new FibonacciTask(n - 2, Task.Status.DECOMPOSE,
+ * 					UNASSIGNED_ID, this.getId()));
  * 
  * 			// Adding the subtasks to a result object and returning it
  * 			r.setSubTasks(subTasks);
@@ -105,6 +105,21 @@ public interface Task<T> {
 		DECOMPOSE, COMPOSE
 	};
 
+	/**
+	 * Task IDs are 64-bit numbers. The bits above ID_LEVEL_SHIFT hold the level
+	 * of the task in the recursion tree, and the bits below it a sequence
+	 * number which the compute space assigns to every spawned subtask, so that
+	 * IDs are unique across the whole tree. The path of a task from the root
+	 * is given by the chain of its parent IDs.
+	 */
+	int ID_LEVEL_SHIFT = 56;
+
+	/**
+	 * ID of a subtask which has not been assigned an ID by the compute space
+	 * yet
+	 */
+	long UNASSIGNED_ID = -1L;
+
 	/**
 	 * This method models the the <a
 	 * href="http://en.wikipedia.org/wiki/Divide_and_conquer_algorithm">Divide
@@ -164,47 +179,64 @@ public interface Task<T> {
 	 * 
 	 * @return ID of the parent task in the recursion tree
 	 */
-	String getParentId();
+	long getParentId();
 
 	/**
 	 * 
 	 * Sets the ID of the parent task in the recursion tree
 	 */
-	void setParentId(String id);
+	void setParentId(long id);
 
 	/**
 	 * 
 	 * @return Unique ID representing this task in the recursion tree
 	 */
 
-	String getId();
+	long getId();
 
 	/**
 	 * 
-	 * Sets a unique ID representing this task in the recursion tree
+	 * Sets a unique ID representing this task in the recursion tree. Subtasks
+	 * are assigned their IDs by the compute space when they are spawned.
 	 */
 
-	void setId(String taskId);
+	void setId(long taskId);
 
 	/**
 	 * 
-	 * @return Number of smaller subtasks generated by this task at the end of
-	 *         the DECOMPOSE ('Divide') phase.
+	 * @return ID of the job this task belongs to
 	 */
+	long getJobId();
 
-	int getDecompositionSize();
+	/**
+	 * Sets the ID of the job this task belongs to. The compute space assigns
+	 * it to the root task of every job, and its subtasks inherit it when they
+	 * are spawned, so that several jobs can share the compute space.
+	 */
+	void setJobId(long jobId);
 
 	/**
+	 * Used by the compute space to prove how far the best known solution of a
+	 * job which searches for a minimum by branch-and-bound is from the
+	 * optimum, see {@link api.Client2Space#submit(Task, Shared, SharedListener, long, double)}.
 	 * 
-	 * @return Unique IDs of all child tasks generated by this task at the end
-	 *         of the DECOMPOSE ('Divide') phase
+	 * @return Lower bound on the value of every solution in the subtree of
+	 *         this task, or Double.NEGATIVE_INFINITY if the task knows none
 	 */
-	List<String> getChildIds();
+	double getLowerBound();
+
+	/**
+	 * 
+	 * @return Number of smaller subtasks generated by this task at the end of
+	 *         the DECOMPOSE ('Divide') phase.
+	 */
+
+	int getDecompositionSize();
 
 	/**
-	 * This method in turn calls the {@link system.Computer#getShared()
-	 * system.Computer.getShared()} method to get the shared object stored by
-	 * each computer
+	 * This method in turn calls the {@link system.Computer#getShared(long)
+	 * system.Computer.getShared(long)} method to get the shared object of this
+	 * task's job stored by each computer
 	 * 
 	 * @return The copy of the shared object that is present in the computer
 	 *         executing the task
@@ -215,9 +247,10 @@ public interface Task<T> {
 	Object getShared() throws RemoteException;
 
 	/**
-	 * This method in turn calls the ({@link system.Computer#broadcast(Shared)
-	 * system.Computer.broadcast(Shared)} ) to set the value of the new shared
-	 * object in the compute pace if its better than the current value.
+	 * This method in turn calls the ({@link system.Computer#broadcast(long, Shared)
+	 * system.Computer.broadcast(long, Shared)} ) to set the value of the new
+	 * shared object of this task's job in the compute pace if its better than
+	 * the current value.
 	 * 
 	 * @param shared
 	 *            An instance of the shared object whose value has to be set in
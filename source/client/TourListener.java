@@ -0,0 +1,24 @@
+package client;
+
+/**
+ * Implemented by clients of a {@link client.TspJob TspJob} which want to use
+ * good tours while the job is still looking for the optimal one
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ * 
+ */
+public interface TourListener {
+
+	/**
+	 * Called whenever a tour shorter than all earlier ones has been found.
+	 * Calls are never concurrent.
+	 * 
+	 * @param length
+	 *            Length of the tour
+	 * @param tour
+	 *            Labels of the cities in the order in which the tour visits
+	 *            them
+	 */
+	void tourFound(double length, int[] tour);
+}
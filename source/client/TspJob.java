@@ -1,8 +1,9 @@
 package client;
 
 import java.io.IOException;
+import java.rmi.NoSuchObjectException;
 import java.rmi.RemoteException;
-import java.util.List;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
@@ -10,10 +11,14 @@ import java.util.logging.SimpleFormatter;
 
 import system.Shared;
 import system.TspShared;
+import tasks.HeldKarpBound;
+import tasks.TspBound;
+import tasks.TspGraph;
+import tasks.TspHeuristic;
 import tasks.TspTask;
-import tasks.TspTask.City;
 import api.Client2Space;
 import api.Result;
+import api.SharedListener;
 
 /**
  * Defines a Travelling Salesman Problem through the generic {@link client.Job
@@ -27,12 +32,31 @@ public class TspJob extends Job {
 
 	private static final String LOG_FILE = "/cs/student/kowshik/tsp_joib.log";
 
+	/*
+	 * Log of all jobs of this client. It has a single file handler, so that
+	 * the many jobs a client keeps in flight neither open a file each nor
+	 * write each record to the files of earlier jobs.
+	 */
+	private static final Logger logger = createLogger();
+
 	private double[][] cities;
+	private TspBound bound;
 	private int[] minRoute;
-	private Logger logger;
-	private Handler handler;
 	private long startTime;
 
+	// Limits of the search, and the gap proven for the stored solution
+	private long deadline;
+	private double targetGap;
+	private double gap;
+
+	// State of a job submitted by submitJob(Client2Space)
+	private Client2Space space;
+	private long jobId;
+	private TspGraph graph;
+	private int[] heuristicTour;
+	private double heuristicLength;
+	private TourStream stream;
+
 	/**
 	 * @param cities
 	 *            Represents the x and y coordinates of cities. cities[i][0] is
@@ -40,20 +64,38 @@ public class TspJob extends Job {
 	 *            y-coordinate of city[i].
 	 */
 	public TspJob(final double[][] cities) {
+		this(cities, new HeldKarpBound());
+	}
+
+	/**
+	 * @param cities
+	 *            Represents the x and y coordinates of cities. cities[i][0] is
+	 *            the x-coordinate of city[i] and cities[i][1] is the
+	 *            y-coordinate of city[i].
+	 * @param bound
+	 *            Strategy used by the tasks of the job to compute lower bounds
+	 */
+	public TspJob(final double[][] cities, TspBound bound) {
 		this.cities = cities.clone();
-		this.logger = Logger.getLogger("TspJob");
-		this.logger.setUseParentHandlers(false);
-		this.handler = null;
-		try {
-			this.handler = new FileHandler(LOG_FILE);
+		this.bound = bound;
+		this.deadline = Long.MAX_VALUE;
+		this.targetGap = 0;
+		this.gap = Double.NaN;
+	}
 
+	private static Logger createLogger() {
+		Logger logger = Logger.getLogger("TspJob");
+		logger.setUseParentHandlers(false);
+		try {
+			Handler handler = new FileHandler(LOG_FILE);
+			handler.setFormatter(new SimpleFormatter());
+			logger.addHandler(handler);
 		} catch (SecurityException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		this.handler.setFormatter(new SimpleFormatter());
-		logger.addHandler(handler);
+		return logger;
 	}
 
 	/**
@@ -64,23 +106,225 @@ public class TspJob extends Job {
 	 *            Compute space to which @{link tasks.TspTask TspTask} objects
 	 *            should be sent for execution
 	 * @throws RemoteException
+	 * @throws IllegalStateException
+	 *             If a task of the job has thrown an exception
 	 * 
 	 * @see client.Job Job
 	 */
 	public void executeJob(Client2Space space) throws RemoteException {
+		if (isLimited()) {
+			submitJob(space);
+			awaitJob(Long.MAX_VALUE);
+			return;
+		}
+		Shared<Double> tspSharedObj = prepare();
+		finish(space.compute(new TspTask(graph, bound), tspSharedObj));
+	}
+
+	/**
+	 * Submits the Travelling Salesman Problem to a compute space without
+	 * waiting for it to be solved, so that one client thread can keep many
+	 * jobs in flight. The solution is fetched later by {@link #pollJob()} or
+	 * {@link #awaitJob(long)}.
+	 * 
+	 * @param space
+	 *            Compute space to which @{link tasks.TspTask TspTask} objects
+	 *            should be sent for execution
+	 * @throws RemoteException
+	 */
+	public void submitJob(Client2Space space) throws RemoteException {
+		submitJob(space, null);
+	}
+
+	/**
+	 * Submits the Travelling Salesman Problem to a compute space as
+	 * {@link #submitJob(Client2Space)} does, and has every tour which is
+	 * shorter than the heuristic one and all earlier ones streamed to a
+	 * listener as soon as it is found. The client may cancel the job once a
+	 * tour is good enough, and {@link #cancelJob()} then stores the best tour
+	 * found so far as the solution.
+	 * 
+	 * @param space
+	 *            Compute space to which @{link tasks.TspTask TspTask} objects
+	 *            should be sent for execution
+	 * @param listener
+	 *            Listener to be told of better tours, or null
+	 * @throws RemoteException
+	 */
+	public void submitJob(Client2Space space, TourListener listener)
+			throws RemoteException {
+		Shared<Double> tspSharedObj = prepare();
+		this.space = space;
+		this.stream = new TourStream(heuristicTour, heuristicLength, listener);
+		boolean isSubmitted = false;
+		try {
+			if (isLimited()) {
+				long timeLimit = (deadline == Long.MAX_VALUE) ? Long.MAX_VALUE
+						: Math.max(0, deadline - System.currentTimeMillis());
+				this.jobId = space.submit(new TspTask(graph, bound),
+						tspSharedObj, stream, timeLimit, targetGap);
+			} else {
+				this.jobId = space.submit(new TspTask(graph, bound),
+						tspSharedObj, stream);
+			}
+			isSubmitted = true;
+		} finally {
+			// The stream of a job which the space has not accepted is not used
+			if (!isSubmitted) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Limits the search of the job, which then returns the best tour found
+	 * once it reaches a deadline or once that tour has been proven to be
+	 * close enough to the optimal one, whichever comes first. Must be called
+	 * before the job is executed or submitted.
+	 * 
+	 * @param deadline
+	 *            Time, in milliseconds since the epoch, at which the job is
+	 *            stopped, or Long.MAX_VALUE
+	 * @param targetGap
+	 *            Largest relative gap (tour length - lower bound) / tour
+	 *            length at which the job is stopped, or 0 to search until the
+	 *            optimal tour has been proven
+	 */
+	public void setLimits(long deadline, double targetGap) {
+		this.deadline = deadline;
+		this.targetGap = targetGap;
+	}
+
+	/**
+	 * 
+	 * @return Relative gap (tour length - lower bound) / tour length between
+	 *         the stored solution and the lowest length proven for any tour,
+	 *         which is 0 if the solution is optimal, or Double.NaN if the job
+	 *         has been cancelled
+	 */
+	public double getGap() {
+		return this.gap;
+	}
+
+	private boolean isLimited() {
+		return deadline != Long.MAX_VALUE || targetGap > 0;
+	}
+
+	/**
+	 * Fetches the solution of a submitted job if it has been found, without
+	 * blocking
+	 * 
+	 * @return true if the solution has been stored, and can be read with
+	 *         {@link #getAllResults()}
+	 * @throws RemoteException
+	 * @throws IllegalStateException
+	 *             If a task of the job has thrown an exception
+	 */
+	public boolean pollJob() throws RemoteException {
+		return finish(space.poll(jobId));
+	}
+
+	/**
+	 * Waits for the solution of a submitted job
+	 * 
+	 * @param timeoutMillis
+	 *            Longest time to wait, in milliseconds
+	 * @return true if the solution has been stored, and can be read with
+	 *         {@link #getAllResults()}
+	 * @throws RemoteException
+	 * @throws IllegalStateException
+	 *             If a task of the job has thrown an exception
+	 */
+	public boolean awaitJob(long timeoutMillis) throws RemoteException {
+		return finish(space.await(jobId, timeoutMillis));
+	}
+
+	/**
+	 * Cancels a submitted job. The best tour found so far is stored as its
+	 * solution, unless the solution of the job has been stored already.
+	 * 
+	 * @return true if the job was still running
+	 * @throws RemoteException
+	 */
+	public boolean cancelJob() throws RemoteException {
+		boolean isCancelled = space.cancel(jobId);
+		if (stream != null) {
+			this.minRoute = stream.getBestTour();
+			this.gap = Double.NaN;
+			close();
+		}
+		return isCancelled;
+	}
+
+	/*
+	 * Builds the graph of the job and finds a heuristic tour, whose length is
+	 * the initial upper bound, so that the search prunes from the start
+	 */
+	private Shared<Double> prepare() {
 		this.startTime = System.currentTimeMillis();
-		Shared<Double> tspSharedObj=new TspShared(TspShared.INFINITY);
-		Result<List<City>> r = (Result<List<City>>) space.compute(new TspTask(cities),tspSharedObj);
+		this.graph = new TspGraph(cities);
+		this.heuristicTour = new TspHeuristic(graph).findTour();
+		this.heuristicLength = graph.tourLength(heuristicTour);
+		logger.info("Heuristic tour length=" + heuristicLength);
+		return new TspShared(heuristicLength);
+	}
+
+	/*
+	 * Stores the solution found in the result of the job
+	 * 
+	 * @return false if there is no result yet, and throws
+	 * IllegalStateException if a task of the job has thrown an exception
+	 */
+	private boolean finish(Result<?> r) {
+		if (r == null) {
+			return false;
+		}
+		if (r.getFailure() != null) {
+			logger.severe("Job failed : " + r.getFailure());
+			close();
+			throw new IllegalStateException("A task of the job failed", r
+					.getFailure());
+		}
 		logger.info("Elapsed Time=" + (System.currentTimeMillis() - startTime));
-		this.minRoute = new int[r.getValue().size()];
-		int index = 0;
-		for (City c : r.getValue()) {
-			minRoute[index] = c.getLabel();
-			index++;
+		this.minRoute = (int[]) r.getValue();
+
+		// A stopped job returns no value, but the best tour it has found
+		if (minRoute == null && r.getShared() instanceof TspShared) {
+			this.minRoute = ((TspShared) r.getShared()).getTour();
+		}
+
+		/*
+		 * The search only returns tours which are shorter than the initial
+		 * upper bound, so there is none if the heuristic tour was optimal
+		 */
+		if (minRoute == null || graph.tourLength(minRoute) > heuristicLength) {
+			this.minRoute = heuristicTour;
 		}
 
-		this.handler.close();
+		// A job without limits is only finished once its search is complete
+		double length = graph.tourLength(minRoute);
+		double lowerBound = Double.isInfinite(r.getLowerBound()) ? length : r
+				.getLowerBound();
+		this.gap = Math.max(0, (length - lowerBound) / length);
+		logger.info("Tour length=" + length + ", gap=" + gap);
 
+		close();
+		return true;
+	}
+
+	/*
+	 * Unexports the stream of a submitted job, once the job has finished or
+	 * could not be submitted
+	 */
+	private void close() {
+		if (stream != null) {
+			try {
+				UnicastRemoteObject.unexportObject(stream, true);
+			} catch (NoSuchObjectException e) {
+				e.printStackTrace();
+			}
+			this.stream = null;
+		}
 	}
 
 	
@@ -100,4 +344,44 @@ public class TspJob extends Job {
 		return this.minRoute;
 	}
 
+	/*
+	 * Receives the better shared objects of a submitted job from the compute
+	 * space, keeps the best tour and passes it on to the client's listener
+	 */
+	private static class TourStream extends UnicastRemoteObject implements
+			SharedListener {
+
+		private static final long serialVersionUID = -2467071452917302658L;
+		private int[] bestTour;
+		private double bestLength;
+		private TourListener listener;
+
+		private TourStream(int[] tour, double length, TourListener listener)
+				throws RemoteException {
+			super();
+			this.bestTour = tour;
+			this.bestLength = length;
+			this.listener = listener;
+		}
+
+		@Override
+		public synchronized void sharedChanged(long jobId, Shared<?> shared) {
+			if (!(shared instanceof TspShared)) {
+				return;
+			}
+			TspShared tspShared = (TspShared) shared;
+			if (tspShared.getTour() == null || tspShared.get() >= bestLength) {
+				return;
+			}
+			this.bestTour = tspShared.getTour();
+			this.bestLength = tspShared.get();
+			if (listener != null) {
+				listener.tourFound(bestLength, bestTour.clone());
+			}
+		}
+
+		private synchronized int[] getBestTour() {
+			return this.bestTour;
+		}
+	}
 }
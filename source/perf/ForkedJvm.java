@@ -0,0 +1,74 @@
+package perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Runs a class of this benchmark suite in a JVM of its own, with the same
+ * class path as this one. Tunables of the search, such as
+ * tsp.leafSolverMaxCost, are read once per JVM, so each setting of a
+ * comparison is measured in a fresh JVM, which also keeps the code compiled
+ * for one setting from being measured with another.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+class ForkedJvm {
+
+	private ForkedJvm() {
+	}
+
+	/**
+	 *
+	 * @param properties
+	 *            System properties of the JVM, as name=value
+	 * @param mainClass
+	 *            Class to be run
+	 * @param args
+	 *            Command-line arguments of the class
+	 * @return Last line printed by the class
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             If the JVM exits with a non-zero status
+	 */
+	static String run(String[] properties, Class<?> mainClass, String... args)
+			throws IOException {
+		List<String> command = new Vector<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		for (String property : properties) {
+			command.add("-D" + property);
+		}
+		command.add(mainClass.getName());
+		for (String arg : args) {
+			command.add(arg);
+		}
+		Process process = new ProcessBuilder(command).redirectErrorStream(true)
+				.start();
+		BufferedReader out = new BufferedReader(new InputStreamReader(process
+				.getInputStream()));
+		StringBuilder output = new StringBuilder();
+		String lastLine = null;
+		String line;
+		while ((line = out.readLine()) != null) {
+			output.append(line).append('\n');
+			lastLine = line;
+		}
+		out.close();
+		try {
+			if (process.waitFor() != 0) {
+				throw new IllegalStateException(command + " failed :\n"
+						+ output);
+			}
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(command + " was interrupted", e);
+		}
+		return lastLine;
+	}
+}
@@ -0,0 +1,283 @@
+package perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import system.Computer;
+import system.ComputerImpl;
+import system.Shared;
+import system.SpaceImpl;
+import api.Result;
+import api.Task;
+
+/**
+ * A compute space and several computers in one JVM, without an RMI registry,
+ * so that benchmarks and checks can run whole jobs. Each computer is wrapped,
+ * so that the tasks shipped to it are counted, and so is the largest number
+ * of tasks which have been running at the same time on all computers. A
+ * computer runs at most as many tasks at a time as it has workers. The
+ * shared objects sent to the computers by calls of their own are counted as
+ * well, along with those which the computers send to the space.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+class LocalCluster {
+
+	private SpaceImpl space;
+	private List<CountingComputer> computers;
+	private List<ComputerImpl> computerImpls;
+	private AtomicLong tasks;
+	private AtomicInteger maxConcurrentTasks;
+	private AtomicLong sharedCalls;
+	private long publishedBase;
+	private long piggybackedBase;
+
+	/**
+	 *
+	 * @param numberOfComputers
+	 *            Number of computers registered with the space
+	 * @param numberOfWorkers
+	 *            Number of tasks executed concurrently by each computer
+	 * @throws RemoteException
+	 */
+	LocalCluster(int numberOfComputers, int numberOfWorkers)
+			throws RemoteException {
+		this.space = new SpaceImpl();
+		this.computers = new Vector<CountingComputer>();
+		this.computerImpls = new Vector<ComputerImpl>();
+		this.tasks = new AtomicLong();
+		this.maxConcurrentTasks = new AtomicInteger();
+		this.sharedCalls = new AtomicLong();
+		for (int i = 0; i < numberOfComputers; i++) {
+			ComputerImpl computerImpl = new ComputerImpl(space, numberOfWorkers);
+			CountingComputer computer = new CountingComputer(computerImpl,
+					numberOfWorkers);
+			computerImpls.add(computerImpl);
+			computers.add(computer);
+			space.register(computer, numberOfWorkers);
+		}
+	}
+
+	SpaceImpl getSpace() {
+		return this.space;
+	}
+
+	/**
+	 *
+	 * @return Number of tasks shipped to the computers since the last reset
+	 */
+	long getTasks() {
+		return this.tasks.get();
+	}
+
+	/**
+	 *
+	 * @return Largest number of tasks which have been running at the same
+	 *         time since the last reset
+	 */
+	int getMaxConcurrentTasks() {
+		return this.maxConcurrentTasks.get();
+	}
+
+	/**
+	 *
+	 * @return Number of shared objects sent to the computers by remote calls
+	 *         of their own, rather than carried by batches, since the last
+	 *         reset
+	 */
+	long getSharedCalls() {
+		return this.sharedCalls.get();
+	}
+
+	/**
+	 *
+	 * @return Number of shared objects sent to the space by the publishers of
+	 *         the computers since the last reset (see
+	 *         {@link system.ComputerImpl#getPublishedBroadcasts()})
+	 */
+	long getPublishedBroadcasts() {
+		return publishedBroadcasts() - publishedBase;
+	}
+
+	/**
+	 *
+	 * @return Number of shared objects carried to the space by the results
+	 *         of batches since the last reset (see
+	 *         {@link system.ComputerImpl#getPiggybackedBroadcasts()})
+	 */
+	long getPiggybackedBroadcasts() {
+		return piggybackedBroadcasts() - piggybackedBase;
+	}
+
+	void resetCounts() {
+		this.tasks.set(0);
+		this.maxConcurrentTasks.set(0);
+		this.sharedCalls.set(0);
+		this.publishedBase = publishedBroadcasts();
+		this.piggybackedBase = piggybackedBroadcasts();
+	}
+
+	private long publishedBroadcasts() {
+		long published = 0;
+		for (ComputerImpl computer : computerImpls) {
+			published += computer.getPublishedBroadcasts();
+		}
+		return published;
+	}
+
+	private long piggybackedBroadcasts() {
+		long piggybacked = 0;
+		for (ComputerImpl computer : computerImpls) {
+			piggybacked += computer.getPiggybackedBroadcasts();
+		}
+		return piggybacked;
+	}
+
+	/*
+	 * Updates the largest number of running tasks, after the number of tasks
+	 * in flight on a computer has risen
+	 */
+	private void updateConcurrentTasks() {
+		int running = 0;
+		for (CountingComputer computer : computers) {
+			running += Math.min(computer.inFlight.get(),
+					computer.numberOfWorkers);
+		}
+		int max = maxConcurrentTasks.get();
+		while (running > max && !maxConcurrentTasks.compareAndSet(max, running)) {
+			max = maxConcurrentTasks.get();
+		}
+	}
+
+	/**
+	 *
+	 * @return CPU time used so far by the dispatcher threads of the proxies,
+	 *         in nanoseconds
+	 */
+	long getProxyCpuTime() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long cpuTime = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("ComputerProxy")) {
+				cpuTime += Math.max(0, threads.getThreadCpuTime(thread
+						.getId()));
+			}
+		}
+		return cpuTime;
+	}
+
+	/**
+	 * Unexports the space and the computers, whose threads keep running until
+	 * the JVM exits
+	 */
+	void shutdown() {
+		try {
+			for (CountingComputer computer : computers) {
+				UnicastRemoteObject.unexportObject(computer.computer, true);
+			}
+			UnicastRemoteObject.unexportObject(space, true);
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Computer which counts the tasks and shared objects shipped to another
+	 * one
+	 */
+	private class CountingComputer implements Computer {
+
+		private final Computer computer;
+		private final int numberOfWorkers;
+		private final AtomicInteger inFlight;
+
+		private CountingComputer(Computer computer, int numberOfWorkers) {
+			this.computer = computer;
+			this.numberOfWorkers = numberOfWorkers;
+			this.inFlight = new AtomicInteger();
+		}
+
+		@Override
+		public Result<?> execute(Task<?> t) throws RemoteException {
+			started(1);
+			try {
+				return computer.execute(t);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+
+		@Override
+		public List<Result<?>> executeBatch(List<Task<?>> batch,
+				Map<Long, Shared<?>> shared) throws RemoteException {
+			started(batch.size());
+			try {
+				return computer.executeBatch(batch, shared);
+			} finally {
+				inFlight.addAndGet(-batch.size());
+			}
+		}
+
+		private void started(int numberOfTasks) {
+			tasks.addAndGet(numberOfTasks);
+			inFlight.addAndGet(numberOfTasks);
+			updateConcurrentTasks();
+		}
+
+		@Override
+		public void requestSplit() throws RemoteException {
+			computer.requestSplit();
+		}
+
+		@Override
+		public boolean takeSplitRequest() throws RemoteException {
+			return computer.takeSplitRequest();
+		}
+
+		@Override
+		public boolean broadcast(long jobId, Shared<?> proposedShared)
+				throws RemoteException {
+			return computer.broadcast(jobId, proposedShared);
+		}
+
+		@Override
+		public void setShared(long jobId, Shared<?> proposedShared)
+				throws RemoteException {
+			sharedCalls.incrementAndGet();
+			computer.setShared(jobId, proposedShared);
+		}
+
+		@Override
+		public Shared<?> getShared(long jobId) throws RemoteException {
+			return computer.getShared(jobId);
+		}
+
+		@Override
+		public double getUpperBound(long jobId) throws RemoteException {
+			return computer.getUpperBound(jobId);
+		}
+
+		@Override
+		public void removeJob(long jobId) throws RemoteException {
+			computer.removeJob(jobId);
+		}
+
+		@Override
+		public String getId() throws RemoteException {
+			return computer.getId();
+		}
+
+		@Override
+		public void setId(String id) throws RemoteException {
+			computer.setId(id);
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package perf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Vector;
+
+import system.Computer;
+import system.Shared;
+import system.TspShared;
+import api.Result;
+import api.Task;
+
+/**
+ * A {@link system.Computer Computer} which executes tasks of a single job in
+ * the calling thread, without RMI, a compute space or a publisher thread, so
+ * that checks can run a task on its own. It counts the times the upper bound
+ * is read, which a {@link tasks.TspTask TspTask} does once per step of its
+ * search, and the better shared objects it has accepted.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+class LocalComputer implements Computer {
+
+	private Shared<?> shared;
+	private double upperBound;
+	private boolean isSplitRequested;
+	private long upperBoundReads;
+	private int broadcasts;
+	private String id;
+
+	LocalComputer() {
+		this(new TspShared(TspShared.INFINITY));
+	}
+
+	/**
+	 *
+	 * @param shared
+	 *            Initial shared object of the job, whose value is the initial
+	 *            upper bound of the search
+	 */
+	LocalComputer(Shared<?> shared) {
+		this.shared = shared;
+		this.upperBound = ((Number) shared.get()).doubleValue();
+	}
+
+	@Override
+	public Result<?> execute(Task<?> t) {
+		t.setComputer(this);
+		return t.execute();
+	}
+
+	@Override
+	public List<Result<?>> executeBatch(List<Task<?>> tasks,
+			Map<Long, Shared<?>> shared) {
+		List<Result<?>> results = new Vector<Result<?>>();
+		for (Task<?> t : tasks) {
+			results.add(execute(t));
+		}
+		return results;
+	}
+
+	@Override
+	public void requestSplit() {
+		this.isSplitRequested = true;
+	}
+
+	@Override
+	public boolean takeSplitRequest() {
+		boolean isTaken = this.isSplitRequested;
+		this.isSplitRequested = false;
+		return isTaken;
+	}
+
+	@Override
+	public boolean broadcast(long jobId, Shared<?> proposedShared) {
+		if (shared.isNewerThan(proposedShared)) {
+			return false;
+		}
+		setShared(jobId, proposedShared);
+		broadcasts++;
+		return true;
+	}
+
+	@Override
+	public void setShared(long jobId, Shared<?> proposedShared) {
+		this.shared = proposedShared;
+		this.upperBound = ((Number) proposedShared.get()).doubleValue();
+	}
+
+	@Override
+	public Shared<?> getShared(long jobId) {
+		return this.shared;
+	}
+
+	@Override
+	public double getUpperBound(long jobId) {
+		upperBoundReads++;
+		return this.upperBound;
+	}
+
+	@Override
+	public void removeJob(long jobId) {
+	}
+
+	@Override
+	public String getId() {
+		return this.id;
+	}
+
+	@Override
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	/**
+	 *
+	 * @return Number of times the upper bound has been read
+	 */
+	long getUpperBoundReads() {
+		return this.upperBoundReads;
+	}
+
+	/**
+	 *
+	 * @return Number of shared objects which have been accepted
+	 */
+	int getBroadcasts() {
+		return this.broadcasts;
+	}
+
+	/**
+	 *
+	 * @return Cities at random integer coordinates in a 100 x 100 square,
+	 *         which are the same for the same seed
+	 */
+	static double[][] randomCities(int n, long seed) {
+		Random random = new Random(seed);
+		double[][] cities = new double[n][2];
+		for (double[] city : cities) {
+			city[0] = random.nextInt(100);
+			city[1] = random.nextInt(100);
+		}
+		return cities;
+	}
+}
@@ -0,0 +1,168 @@
+package perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import system.SpaceImpl;
+import system.Successor;
+import tasks.HeldKarpBound;
+import tasks.TspGraph;
+import tasks.TspTask;
+import api.Task;
+
+/**
+ * Measures how quickly the compute space dispatches a successor once the last
+ * missing argument of its {@link system.Successor.Closure Closure} has been
+ * put, and how much CPU the dispatching threads of the space use while doing
+ * so and while idle.
+ *
+ * The successors join {@link tasks.TspTask TspTask} tours, as the COMPOSE
+ * stages of a large TSP job do. Several threads, standing in for the
+ * proxies, fill the closures. The space only records when each successor
+ * runs, instead of handing its task to a proxy, so that no computer is needed.
+ *
+ * Usage: SuccessorDispatchBenchmark [successors [joinCounter [threads]]]
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class SuccessorDispatchBenchmark {
+
+	private static final int DEFAULT_SUCCESSORS = 100000;
+	private static final int DEFAULT_JOIN_COUNTER = 8;
+	private static final int DEFAULT_THREADS = 4;
+	private static final int NUMBER_OF_CITIES = 12;
+	private static final long IDLE_MILLIS = 1000;
+
+	public static void main(String[] args) throws Exception {
+		int successors = (args.length > 0) ? Integer.parseInt(args[0])
+				: DEFAULT_SUCCESSORS;
+		final int joinCounter = (args.length > 1) ? Integer.parseInt(args[1])
+				: DEFAULT_JOIN_COUNTER;
+		int threads = (args.length > 2) ? Integer.parseInt(args[2])
+				: DEFAULT_THREADS;
+
+		final TimedSpace space = new TimedSpace(successors);
+		final Successor[] waiting = new Successor[successors];
+		TspGraph graph = new TspGraph(LocalComputer.randomCities(
+				NUMBER_OF_CITIES, NUMBER_OF_CITIES));
+		for (int i = 0; i < successors; i++) {
+			TspTask task = new TspTask(graph, new HeldKarpBound());
+			task.setId(i);
+			task.setStatus(Task.Status.COMPOSE);
+			waiting[i] = new Successor(task, space, joinCounter);
+		}
+		final int[] tour = new int[NUMBER_OF_CITIES];
+		for (int i = 0; i < tour.length; i++) {
+			tour[i] = i;
+		}
+		final long[] lastPut = new long[successors];
+
+		long cpuBefore = space.getDispatchCpuTime();
+		long start = System.nanoTime();
+		Thread[] producers = new Thread[threads];
+		for (int p = 0; p < threads; p++) {
+			final int first = p;
+			final int step = threads;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = first; i < waiting.length; i += step) {
+						Successor.Closure closure = waiting[i].getClosure();
+						for (int j = 1; j < joinCounter; j++) {
+							closure.put(tour);
+						}
+						lastPut[i] = System.nanoTime();
+						closure.put(tour);
+					}
+				}
+			});
+			producers[p].start();
+		}
+		space.dispatched.await();
+		long elapsed = System.nanoTime() - start;
+		long busyCpu = space.getDispatchCpuTime() - cpuBefore;
+
+		cpuBefore = space.getDispatchCpuTime();
+		Thread.sleep(IDLE_MILLIS);
+		long idleCpu = space.getDispatchCpuTime() - cpuBefore;
+
+		long[] latencies = new long[successors];
+		for (int i = 0; i < successors; i++) {
+			latencies[i] = space.dispatchTimes[i] - lastPut[i];
+		}
+		Arrays.sort(latencies);
+		long sum = 0;
+		for (long latency : latencies) {
+			sum += latency;
+		}
+		System.out.println("Successors=" + successors + ", join counter="
+				+ joinCounter + ", threads=" + threads);
+		System.out.printf("Dispatched in %.1f ms (%.0f successors/s)%n",
+				elapsed / 1e6, successors / (elapsed / 1e9));
+		System.out.printf(
+				"Join-to-dispatch latency : mean=%.1f us, p50=%.1f us, "
+						+ "p99=%.1f us, max=%.1f us%n", sum
+						/ (double) successors / 1e3, latencies[successors / 2]
+						/ 1e3, latencies[(int) (successors * 0.99)] / 1e3,
+				latencies[successors - 1] / 1e3);
+		System.out.printf(
+				"Space dispatch CPU : %.1f ms busy, %.1f ms idle over %d ms%n",
+				busyCpu / 1e6, idleCpu / 1e6, IDLE_MILLIS);
+		UnicastRemoteObject.unexportObject(space, true);
+		System.exit(0);
+	}
+
+	/*
+	 * Compute space which records when each successor puts its task, and
+	 * which threads dispatch successors, instead of handing the task to a
+	 * proxy
+	 */
+	private static class TimedSpace extends SpaceImpl {
+
+		private static final long serialVersionUID = 5529376370162745934L;
+		private final long[] dispatchTimes;
+		private final CountDownLatch dispatched;
+		private final Set<Thread> dispatchers;
+
+		private TimedSpace(int successors) throws RemoteException {
+			super();
+			this.dispatchTimes = new long[successors];
+			this.dispatched = new CountDownLatch(successors);
+			this.dispatchers = Collections
+					.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+		}
+
+		@Override
+		public boolean put(Task<?> aTask) {
+			dispatchTimes[(int) aTask.getId()] = System.nanoTime();
+			dispatchers.add(Thread.currentThread());
+			dispatched.countDown();
+			return true;
+		}
+
+		/*
+		 * CPU time used so far by the thread of the space and by the threads
+		 * which have dispatched successors
+		 */
+		private long getDispatchCpuTime() {
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			long cpuTime = 0;
+			for (Thread thread : Thread.getAllStackTraces().keySet()) {
+				if (thread.getName().equals("Space")
+						|| dispatchers.contains(thread)) {
+					cpuTime += Math.max(0, threads.getThreadCpuTime(thread
+							.getId()));
+				}
+			}
+			return cpuTime;
+		}
+	}
+}
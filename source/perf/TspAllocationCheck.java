@@ -0,0 +1,99 @@
+package perf;
+
+import java.lang.management.ManagementFactory;
+
+import tasks.HeldKarpBound;
+import tasks.MinEdgeBound;
+import tasks.OneTreeBound;
+import tasks.TspBound;
+import tasks.TspGraph;
+import tasks.TspTask;
+
+/**
+ * Checks that the depth-first search of a {@link tasks.TspTask TspTask}
+ * allocates nothing per node. Whole jobs are searched by a single task in
+ * the calling thread, whose allocated bytes are read from the JVM before and
+ * after. A search may allocate a few arrays per task and a copy of each
+ * improved tour. What it allocates beyond that is divided by the number of
+ * steps of the search, and must stay far below one small object per step.
+ * Each search is run once beforehand, so that the thread-local scratch space
+ * of the bounds and of the leaf solver has been allocated already. Exits
+ * with status 1 if a check fails.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspAllocationCheck {
+
+	// Largest number of bytes allocated per step of the search
+	private static final double MAX_BYTES_PER_STEP = 0.25;
+
+	/*
+	 * Bytes a search may allocate once, and per city, for its arrays and its
+	 * result
+	 */
+	private static final long TASK_BYTES = 1024;
+	private static final long TASK_BYTES_PER_CITY = 48;
+
+	/*
+	 * Bytes a search may allocate for each improved tour, and per city, for
+	 * the tour and the shared object carrying it
+	 */
+	private static final long TOUR_BYTES = 64;
+	private static final long TOUR_BYTES_PER_CITY = 4;
+
+	public static void main(String[] args) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("Allocated bytes cannot be measured by this JVM");
+			return;
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+		boolean isPassed = check(threads, 16, new MinEdgeBound())
+				& check(threads, 24, new OneTreeBound())
+				& check(threads, 36, new HeldKarpBound());
+		if (!isPassed) {
+			System.exit(1);
+		}
+		System.out.println("The search allocates nothing per node");
+	}
+
+	private static boolean check(com.sun.management.ThreadMXBean threads,
+			int n, TspBound bound) {
+		TspGraph graph = new TspGraph(LocalComputer.randomCities(n, n));
+		search(graph, bound);
+
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		LocalComputer computer = search(graph, bound);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		long steps = computer.getUpperBoundReads();
+		long allowed = TASK_BYTES + TASK_BYTES_PER_CITY * n
+				+ computer.getBroadcasts()
+				* (TOUR_BYTES + TOUR_BYTES_PER_CITY * n);
+		double bytesPerStep = (double) Math.max(0, allocated - allowed)
+				/ steps;
+		System.out.printf("Cities=%d, %s : %d bytes over %d steps and %d "
+				+ "improved tours, %.4f bytes per step beyond %d bytes%n",
+				n, bound.getClass().getSimpleName(), allocated, steps,
+				computer.getBroadcasts(), bytesPerStep, allowed);
+		if (bytesPerStep > MAX_BYTES_PER_STEP) {
+			System.err.println("FAILED : more than " + MAX_BYTES_PER_STEP
+					+ " bytes per step");
+			return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Searches a whole job in one task, without an initial upper bound
+	 *
+	 * @return Computer which has counted the steps of the search
+	 */
+	private static LocalComputer search(TspGraph graph, TspBound bound) {
+		LocalComputer computer = new LocalComputer();
+		computer.execute(new TspTask(graph, bound));
+		return computer;
+	}
+}
@@ -0,0 +1,100 @@
+package perf;
+
+import java.rmi.RemoteException;
+
+import client.TspJob;
+
+/**
+ * Measures how a TSP job is spread over several computers. The compute space
+ * and its computers run in this JVM (see {@link LocalCluster}). For each job
+ * the wall-clock time is reported, with the number of tasks shipped to the
+ * computers and the largest number of them which were running at the same
+ * time. A job which is never split runs as a single task. Once the jobs are
+ * done, the CPU used by the dispatchers of the proxies while the cluster is
+ * idle is reported, which should be none.
+ *
+ * Usage: TspClusterBenchmark [cities [computers [workers [jobs]]]]
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspClusterBenchmark {
+
+	private static final int DEFAULT_CITIES = 30;
+	private static final int DEFAULT_COMPUTERS = 2;
+	private static final int DEFAULT_WORKERS = 4;
+	private static final int DEFAULT_JOBS = 3;
+
+	// Time given to the proxies to register and go idle before the first job
+	private static final long SETTLE_MILLIS = 200;
+	private static final long IDLE_MILLIS = 1000;
+
+	public static void main(String[] args) throws Exception {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_CITIES;
+		int computers = (args.length > 1) ? Integer.parseInt(args[1])
+				: DEFAULT_COMPUTERS;
+		int workers = (args.length > 2) ? Integer.parseInt(args[2])
+				: DEFAULT_WORKERS;
+		int jobs = (args.length > 3) ? Integer.parseInt(args[3])
+				: DEFAULT_JOBS;
+
+		LocalCluster cluster = new LocalCluster(computers, workers);
+		Thread.sleep(SETTLE_MILLIS);
+		System.out.println("Cities=" + n + ", computers=" + computers
+				+ ", workers=" + workers);
+		for (int i = 0; i < jobs; i++) {
+			Run run = run(cluster, LocalComputer.randomCities(n, n + i));
+			System.out.printf("Job %d : %d ms, tasks=%d, "
+					+ "maxConcurrentTasks=%d, length=%.2f%n", i,
+					run.elapsedMillis, run.tasks, run.maxConcurrentTasks,
+					run.length);
+		}
+		Thread.sleep(SETTLE_MILLIS);
+		long cpuBefore = cluster.getProxyCpuTime();
+		Thread.sleep(IDLE_MILLIS);
+		System.out.printf("Idle proxy CPU : %.1f ms over %d ms%n",
+				(cluster.getProxyCpuTime() - cpuBefore) / 1e6, IDLE_MILLIS);
+		cluster.shutdown();
+		System.exit(0);
+	}
+
+	/**
+	 * Solves one job on the cluster
+	 *
+	 * @return Time taken and tasks shipped by the job
+	 * @throws RemoteException
+	 */
+	static Run run(LocalCluster cluster, double[][] cities)
+			throws RemoteException {
+		TspJob job = new TspJob(cities);
+		cluster.resetCounts();
+		long start = System.nanoTime();
+		job.executeJob(cluster.getSpace());
+		Run run = new Run();
+		run.elapsedMillis = (System.nanoTime() - start) / 1000000;
+		run.tasks = cluster.getTasks();
+		run.maxConcurrentTasks = cluster.getMaxConcurrentTasks();
+		run.length = tourLength(cities, job.getAllResults());
+		return run;
+	}
+
+	static double tourLength(double[][] cities, int[] tour) {
+		double length = 0;
+		for (int i = 0; i < tour.length; i++) {
+			double[] from = cities[tour[i]];
+			double[] to = cities[tour[(i + 1) % tour.length]];
+			length += Math.hypot(from[0] - to[0], from[1] - to[1]);
+		}
+		return length;
+	}
+
+	/*
+	 * Measurements of one job
+	 */
+	static class Run {
+		long elapsedMillis;
+		long tasks;
+		int maxConcurrentTasks;
+		double length;
+	}
+}
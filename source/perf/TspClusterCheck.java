@@ -0,0 +1,72 @@
+package perf;
+
+/**
+ * Checks that a TSP job is spread over the workers of a cluster, and that the
+ * proxies use no CPU once the cluster is idle. Each cluster runs in this JVM
+ * (see {@link LocalCluster}). Its job must be split into several tasks, and
+ * at least a quarter of the workers of the cluster must have been running a
+ * task at the same time. Exits with status 1 if a check fails.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspClusterCheck {
+
+	private static final int NUMBER_OF_CITIES = 36;
+
+	// Computers and workers per computer of each cluster
+	private static final int[][] CLUSTERS = { { 1, 4 }, { 2, 4 }, { 4, 8 } };
+
+	// Smallest fraction of the workers which must run tasks at the same time
+	private static final double MIN_CONCURRENCY = 0.25;
+
+	// Largest CPU time, in milliseconds, used by idle proxies per second
+	private static final double MAX_IDLE_CPU_MILLIS = 10;
+
+	private static final long SETTLE_MILLIS = 200;
+	private static final long IDLE_MILLIS = 1000;
+
+	public static void main(String[] args) throws Exception {
+		boolean isPassed = true;
+		for (int[] size : CLUSTERS) {
+			isPassed &= check(size[0], size[1]);
+		}
+		if (!isPassed) {
+			System.exit(1);
+		}
+		System.out.println("Jobs are spread over the workers of each cluster");
+		System.exit(0);
+	}
+
+	private static boolean check(int computers, int workers) throws Exception {
+		LocalCluster cluster = new LocalCluster(computers, workers);
+		Thread.sleep(SETTLE_MILLIS);
+		TspClusterBenchmark.Run run = TspClusterBenchmark.run(cluster,
+				LocalComputer.randomCities(NUMBER_OF_CITIES, NUMBER_OF_CITIES));
+		Thread.sleep(SETTLE_MILLIS);
+		long cpuBefore = cluster.getProxyCpuTime();
+		Thread.sleep(IDLE_MILLIS);
+		double idleCpu = (cluster.getProxyCpuTime() - cpuBefore) / 1e6;
+		cluster.shutdown();
+
+		int minConcurrentTasks = (int) Math.ceil(MIN_CONCURRENCY * computers
+				* workers);
+		System.out.printf("Computers=%d, workers=%d : %d ms, tasks=%d, "
+				+ "maxConcurrentTasks=%d, idle proxy CPU=%.1f ms%n",
+				computers, workers, run.elapsedMillis, run.tasks,
+				run.maxConcurrentTasks, idleCpu);
+		boolean isPassed = true;
+		if (run.tasks < 2 || run.maxConcurrentTasks < minConcurrentTasks) {
+			System.err.println("FAILED : fewer than " + minConcurrentTasks
+					+ " tasks were running at the same time");
+			isPassed = false;
+		}
+		if (idleCpu > MAX_IDLE_CPU_MILLIS) {
+			System.err.println("FAILED : idle proxies used more than "
+					+ MAX_IDLE_CPU_MILLIS + " ms of CPU in " + IDLE_MILLIS
+					+ " ms");
+			isPassed = false;
+		}
+		return isPassed;
+	}
+}
@@ -0,0 +1,116 @@
+package perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import system.ResultImpl;
+import tasks.HeldKarpBound;
+import tasks.TspGraph;
+import tasks.TspHeuristic;
+import tasks.TspTask;
+import api.Result;
+import api.Task;
+
+/**
+ * Checks that the serialized size of a child {@link tasks.TspTask TspTask},
+ * and of a result carrying a tour, grows linearly with the number of cities,
+ * so that no task drags in its parent, its computer or a distance matrix.
+ *
+ * Child tasks are produced by splitting the search of a root task. The
+ * growth of each payload from 32 to 64 cities is compared with its growth
+ * from 16 to 32 cities, which is about the same for a linear payload and
+ * twice as large for a quadratic one. Exits with status 1 if a check fails.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspPayloadCheck {
+
+	private static final int[] NUMBERS_OF_CITIES = { 16, 32, 64 };
+
+	// Largest ratio of the growth per city of a payload between two sizes
+	private static final double MAX_GROWTH_RATIO = 1.25;
+
+	// Largest serialized size per city, in bytes
+	private static final int MAX_TASK_BYTES_PER_CITY = 64;
+	private static final int MAX_RESULT_BYTES_PER_CITY = 16;
+
+	// Serialized size, in bytes, below which a payload passes regardless
+	private static final int FIXED_BYTES = 1024;
+
+	public static void main(String[] args) throws IOException {
+		int[] taskSizes = new int[NUMBERS_OF_CITIES.length];
+		int[] resultSizes = new int[NUMBERS_OF_CITIES.length];
+		for (int i = 0; i < NUMBERS_OF_CITIES.length; i++) {
+			int n = NUMBERS_OF_CITIES[i];
+			TspGraph graph = new TspGraph(LocalComputer.randomCities(n, n));
+			taskSizes[i] = serializedSize(childTask(graph));
+			Result<int[]> r = new ResultImpl<int[]>();
+			r.setValue(new TspHeuristic(graph).findTour());
+			resultSizes[i] = serializedSize(r);
+			System.out.println("Cities=" + n + " : child task="
+					+ taskSizes[i] + " bytes, result=" + resultSizes[i]
+					+ " bytes");
+		}
+		boolean isPassed = check("Child task", taskSizes,
+				MAX_TASK_BYTES_PER_CITY)
+				& check("Result", resultSizes, MAX_RESULT_BYTES_PER_CITY);
+		if (!isPassed) {
+			System.exit(1);
+		}
+		System.out.println("Payloads grow linearly with the number of cities");
+	}
+
+	/*
+	 * Splits the search of a root task as soon as it has entered a node with
+	 * untried children, and returns the deepest of its subtasks
+	 */
+	private static Task<?> childTask(TspGraph graph) {
+		LocalComputer computer = new LocalComputer();
+		computer.requestSplit();
+		Result<?> r = computer.execute(new TspTask(graph, new HeldKarpBound()));
+		List<? extends Task<?>> subTasks = r.getSubTasks();
+		if (subTasks == null || subTasks.isEmpty()) {
+			throw new IllegalStateException("The root task was not split");
+		}
+		return subTasks.get(0);
+	}
+
+	private static boolean check(String payload, int[] sizes,
+			int maxBytesPerCity) {
+		boolean isPassed = true;
+		for (int i = 0; i < sizes.length; i++) {
+			int n = NUMBERS_OF_CITIES[i];
+			if (sizes[i] > FIXED_BYTES + maxBytesPerCity * n) {
+				System.err.println("FAILED : " + payload + " of " + n
+						+ " cities is " + sizes[i] + " bytes, more than "
+						+ (FIXED_BYTES + maxBytesPerCity * n));
+				isPassed = false;
+			}
+		}
+		for (int i = 2; i < sizes.length; i++) {
+			double lastGrowth = (double) (sizes[i - 1] - sizes[i - 2])
+					/ (NUMBERS_OF_CITIES[i - 1] - NUMBERS_OF_CITIES[i - 2]);
+			double growth = (double) (sizes[i] - sizes[i - 1])
+					/ (NUMBERS_OF_CITIES[i] - NUMBERS_OF_CITIES[i - 1]);
+			if (growth > MAX_GROWTH_RATIO * Math.max(lastGrowth, 1)) {
+				System.err.println("FAILED : " + payload + " grows by "
+						+ growth + " bytes per city from "
+						+ NUMBERS_OF_CITIES[i - 1] + " cities, against "
+						+ lastGrowth + " from " + NUMBERS_OF_CITIES[i - 2]);
+				isPassed = false;
+			}
+		}
+		return isPassed;
+	}
+
+	private static int serializedSize(Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(o);
+		out.close();
+		return bytes.size();
+	}
+}
@@ -0,0 +1,258 @@
+package perf;
+
+import java.io.IOException;
+
+/**
+ * Compares settings of the search of a single {@link tasks.TspTask TspTask}
+ * by the number of steps it takes and its time, summed over several random
+ * instances of each size. Each instance is searched in a JVM of its own for
+ * each setting (see {@link TspSearchRun}). Every setting must find tours of
+ * the same length, and a setting which does not is reported.
+ *
+ * Usage: TspSearchBenchmark [comparison [seeds [cities ...]]]
+ *
+ * The comparisons are:
+ * <ul>
+ * <li>bounds : the MinEdge, OneTree and HeldKarp lower bounds, without an
+ * initial upper bound</li>
+ * <li>strongBound : the fewest unvisited cities for which a node is bounded
+ * by the HeldKarp bound, below which the constant-time bound alone is used
+ * (tsp.strongBoundMinCities), with the leaf solver turned off</li>
+ * <li>ordering : children tried nearest first or by increasing label
+ * (tsp.nearestFirst), with the HeldKarp bound</li>
+ * <li>seeding : the length of a heuristic tour as the initial upper bound, or
+ * none, with the HeldKarp bound. The time of the heuristic is not included
+ * (see {@link TspSeedingBenchmark} for whole jobs on a cluster).</li>
+ * <li>leafSolver : the largest number k of unvisited cities for which a node
+ * is completed by the leaf solver, from 0 to 12, that is a
+ * tsp.leafSolverMaxCost of k * k * 2^k, with the HeldKarp and the MinEdge
+ * bounds. The cities, if given, are used for both bounds.</li>
+ * </ul>
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSearchBenchmark {
+
+	private static final int DEFAULT_SEEDS = 3;
+	private static final int[] DEFAULT_BOUNDS_CITIES = { 12, 14, 16, 18 };
+	private static final int[] DEFAULT_STRONG_BOUND_CITIES = { 16, 20, 22 };
+	static final String[] STRONG_BOUND_MIN_CITIES = { "0", "4", "8" };
+	private static final int[] DEFAULT_ORDERING_CITIES = { 16, 20, 24 };
+	static final String[] ORDERINGS = { "nearestFirst", "byLabel" };
+	private static final int[] DEFAULT_SEEDING_CITIES = { 18, 20, 22 };
+	static final String[] SEEDINGS = { "heuristic", "none" };
+	private static final int[] DEFAULT_LEAF_SOLVER_CITIES = { 16, 20 };
+	private static final int[] DEFAULT_LEAF_SOLVER_MIN_EDGE_CITIES = { 12, 14 };
+	static final int MAX_LEAF_SOLVER_CITIES = 12;
+
+	public static void main(String[] args) throws IOException {
+		String comparison = (args.length > 0) ? args[0] : "bounds";
+		int seeds = (args.length > 1) ? Integer.parseInt(args[1])
+				: DEFAULT_SEEDS;
+		int[] cities = null;
+		if (args.length > 2) {
+			cities = new int[args.length - 2];
+			for (int i = 0; i < cities.length; i++) {
+				cities[i] = Integer.parseInt(args[i + 2]);
+			}
+		}
+		if (comparison.equals("bounds")) {
+			compareBounds(cities == null ? DEFAULT_BOUNDS_CITIES : cities,
+					seeds);
+		} else if (comparison.equals("strongBound")) {
+			compareStrongBound(cities == null ? DEFAULT_STRONG_BOUND_CITIES
+					: cities, seeds);
+		} else if (comparison.equals("ordering")) {
+			compareOrdering(cities == null ? DEFAULT_ORDERING_CITIES : cities,
+					seeds);
+		} else if (comparison.equals("seeding")) {
+			compareSeeding(cities == null ? DEFAULT_SEEDING_CITIES : cities,
+					seeds);
+		} else if (comparison.equals("leafSolver")) {
+			compareLeafSolver("HeldKarp",
+					cities == null ? DEFAULT_LEAF_SOLVER_CITIES : cities, seeds);
+			compareLeafSolver("MinEdge",
+					cities == null ? DEFAULT_LEAF_SOLVER_MIN_EDGE_CITIES
+							: cities, seeds);
+		} else {
+			throw new IllegalArgumentException("Unknown comparison : "
+					+ comparison);
+		}
+	}
+
+	private static void compareBounds(int[] cities, int seeds)
+			throws IOException {
+		String[] settings = TspSearchRun.BOUNDS;
+		System.out.println("Lower bounds, no initial upper bound, seeds 1-"
+				+ seeds + " : steps / ms");
+		for (int n : cities) {
+			Total[] totals = new Total[settings.length];
+			for (int i = 0; i < settings.length; i++) {
+				totals[i] = measure(new String[0], n, seeds, settings[i],
+						"none");
+			}
+			print(n, settings, totals);
+		}
+	}
+
+	private static void compareStrongBound(int[] cities, int seeds)
+			throws IOException {
+		String[] settings = STRONG_BOUND_MIN_CITIES;
+		String[] labels = new String[settings.length];
+		for (int i = 0; i < settings.length; i++) {
+			labels[i] = "from " + settings[i];
+		}
+		System.out.println("HeldKarp bound from this many unvisited cities, "
+				+ "no leaf solver, seeds 1-" + seeds + " : steps / ms");
+		for (int n : cities) {
+			Total[] totals = new Total[settings.length];
+			for (int i = 0; i < settings.length; i++) {
+				totals[i] = measure(strongBoundProperties(settings[i]), n,
+						seeds, "HeldKarp", "none");
+			}
+			print(n, labels, totals);
+		}
+	}
+
+	/**
+	 * @return System properties which bound nodes with the HeldKarp bound from
+	 *         the given number of unvisited cities, without the leaf solver
+	 */
+	static String[] strongBoundProperties(String minCities) {
+		return new String[] { "tsp.strongBoundMinCities=" + minCities,
+				"tsp.leafSolverMaxCost=0" };
+	}
+
+	private static void compareOrdering(int[] cities, int seeds)
+			throws IOException {
+		String[] settings = ORDERINGS;
+		System.out.println("Order of children, HeldKarp bound, seeds 1-"
+				+ seeds + " : steps / ms");
+		for (int n : cities) {
+			Total[] totals = new Total[settings.length];
+			for (int i = 0; i < settings.length; i++) {
+				totals[i] = measure(orderingProperties(settings[i]), n, seeds,
+						"HeldKarp", "none");
+			}
+			print(n, settings, totals);
+		}
+	}
+
+	/**
+	 * @return System properties which try children in the given order
+	 */
+	static String[] orderingProperties(String ordering) {
+		return new String[] { "tsp.nearestFirst="
+				+ ordering.equals("nearestFirst") };
+	}
+
+	private static void compareSeeding(int[] cities, int seeds)
+			throws IOException {
+		String[] settings = SEEDINGS;
+		System.out.println("Initial upper bound, HeldKarp bound, seeds 1-"
+				+ seeds + " : steps / ms");
+		for (int n : cities) {
+			Total[] totals = new Total[settings.length];
+			for (int i = 0; i < settings.length; i++) {
+				totals[i] = measure(new String[0], n, seeds, "HeldKarp",
+						settings[i]);
+			}
+			print(n, settings, totals);
+		}
+	}
+
+	/*
+	 * Prints a line for each budget of the leaf solver, with a column for each
+	 * number of cities, since there are more budgets than sizes
+	 */
+	private static void compareLeafSolver(String bound, int[] cities,
+			int seeds) throws IOException {
+		System.out.println("Leaf solver up to k unvisited cities, " + bound
+				+ " bound, seeds 1-" + seeds + " : steps / ms");
+		Total[] firsts = new Total[cities.length];
+		for (int k = 0; k <= MAX_LEAF_SOLVER_CITIES; k++) {
+			StringBuilder line = new StringBuilder(String.format("k=%-3d", k));
+			for (int i = 0; i < cities.length; i++) {
+				Total total = measure(leafSolverProperties(k), cities[i],
+						seeds, bound, "none");
+				line.append(String.format("  n=%d %d / %.0f", cities[i],
+						total.steps, total.millis));
+				if (k == 0) {
+					firsts[i] = total;
+				} else if (!total.isSameTours(firsts[i])) {
+					line.append("  MISMATCH : n=" + cities[i]
+							+ " found other tours than k=0");
+				}
+			}
+			System.out.println(line);
+		}
+	}
+
+	/**
+	 * @return System properties which complete the nodes with up to k
+	 *         unvisited cities with the leaf solver
+	 */
+	static String[] leafSolverProperties(int k) {
+		return new String[] { "tsp.leafSolverMaxCost=" + (long) k * k
+				* (1L << k) };
+	}
+
+	/**
+	 * Searches the instances of one size with one setting
+	 *
+	 * @param properties
+	 *            System properties of the JVMs, as name=value
+	 * @return Steps and time summed over the instances, and the length of the
+	 *         tour found for each instance
+	 */
+	static Total measure(String[] properties, int n, int seeds, String bound,
+			String seeding) throws IOException {
+		Total total = new Total(seeds);
+		for (int seed = 1; seed <= seeds; seed++) {
+			double[] run = TspSearchRun.fork(properties, n, seed, bound,
+					seeding);
+			total.steps += (long) run[0];
+			total.millis += run[1];
+			total.lengths[seed - 1] = run[2];
+		}
+		return total;
+	}
+
+	private static void print(int n, String[] settings, Total[] totals) {
+		StringBuilder line = new StringBuilder(String.format("n=%-3d", n));
+		for (int i = 0; i < settings.length; i++) {
+			line.append(String.format("  %s %d / %.0f", settings[i],
+					totals[i].steps, totals[i].millis));
+		}
+		for (int i = 1; i < totals.length; i++) {
+			if (!totals[i].isSameTours(totals[0])) {
+				line.append("  MISMATCH : " + settings[i]
+						+ " found other tours than " + settings[0]);
+			}
+		}
+		System.out.println(line);
+	}
+
+	/*
+	 * Measurements of one setting over the instances of one size
+	 */
+	static class Total {
+		long steps;
+		double millis;
+		final double[] lengths;
+
+		Total(int seeds) {
+			this.lengths = new double[seeds];
+		}
+
+		boolean isSameTours(Total other) {
+			for (int i = 0; i < lengths.length; i++) {
+				if (Math.abs(lengths[i] - other.lengths[i]) > 1e-6) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
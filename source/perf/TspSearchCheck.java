@@ -0,0 +1,191 @@
+package perf;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Checks the claims of {@link TspSearchBenchmark} on small instances, whose
+ * optimal tours are found by a dynamic program of this class. The number of
+ * steps of a search does not depend on timing, so the checks are exact:
+ * <ul>
+ * <li>every lower bound finds the optimal tour</li>
+ * <li>HeldKarp takes fewer steps than OneTree, which takes fewer than
+ * MinEdge</li>
+ * <li>without the leaf solver, bounding nodes with the HeldKarp bound from
+ * fewer unvisited cities takes fewer steps</li>
+ * <li>trying children nearest first takes fewer steps than by label</li>
+ * <li>seeding the search with a heuristic tour takes fewer steps than
+ * without</li>
+ * <li>every budget of the leaf solver finds the optimal tour</li>
+ * </ul>
+ * Exits with status 1 if a check fails.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSearchCheck {
+
+	private static final int NUMBER_OF_CITIES = 12;
+	private static final int SEEDS = 3;
+
+	private static double[] optimalLengths;
+
+	public static void main(String[] args) throws IOException {
+		optimalLengths = new double[SEEDS];
+		for (int seed = 1; seed <= SEEDS; seed++) {
+			optimalLengths[seed - 1] = optimalLength(LocalComputer
+					.randomCities(NUMBER_OF_CITIES, seed));
+		}
+		boolean isPassed = checkBounds();
+		isPassed &= checkStrongBound();
+		isPassed &= checkOrdering();
+		isPassed &= checkSeeding();
+		isPassed &= checkLeafSolver();
+		if (!isPassed) {
+			System.exit(1);
+		}
+		System.out.println("The search settings find optimal tours and "
+				+ "keep their order of steps");
+	}
+
+	private static boolean checkBounds() throws IOException {
+		String[] bounds = TspSearchRun.BOUNDS;
+		TspSearchBenchmark.Total[] totals = new TspSearchBenchmark.Total[bounds.length];
+		boolean isPassed = true;
+		for (int i = 0; i < bounds.length; i++) {
+			totals[i] = measure(new String[0], bounds[i], "none");
+			isPassed &= checkOptimal(bounds[i], totals[i]);
+		}
+		for (int i = 1; i < bounds.length; i++) {
+			isPassed &= checkFewerSteps(bounds[i], totals[i], bounds[i - 1],
+					totals[i - 1]);
+		}
+		return isPassed;
+	}
+
+	private static boolean checkStrongBound() throws IOException {
+		String[] settings = TspSearchBenchmark.STRONG_BOUND_MIN_CITIES;
+		TspSearchBenchmark.Total[] totals = new TspSearchBenchmark.Total[settings.length];
+		boolean isPassed = true;
+		for (int i = 0; i < settings.length; i++) {
+			totals[i] = measure(TspSearchBenchmark
+					.strongBoundProperties(settings[i]), "HeldKarp", "none");
+			isPassed &= checkOptimal("HeldKarp from " + settings[i], totals[i]);
+		}
+		for (int i = 1; i < settings.length; i++) {
+			isPassed &= checkFewerSteps("HeldKarp from " + settings[i - 1],
+					totals[i - 1], "HeldKarp from " + settings[i], totals[i]);
+		}
+		return isPassed;
+	}
+
+	private static boolean checkOrdering() throws IOException {
+		String[] settings = TspSearchBenchmark.ORDERINGS;
+		TspSearchBenchmark.Total[] totals = new TspSearchBenchmark.Total[settings.length];
+		boolean isPassed = true;
+		for (int i = 0; i < settings.length; i++) {
+			totals[i] = measure(TspSearchBenchmark
+					.orderingProperties(settings[i]), "HeldKarp", "none");
+			isPassed &= checkOptimal(settings[i], totals[i]);
+		}
+		return isPassed
+				& checkFewerSteps(settings[0], totals[0], settings[1],
+						totals[1]);
+	}
+
+	private static boolean checkSeeding() throws IOException {
+		String[] settings = TspSearchBenchmark.SEEDINGS;
+		TspSearchBenchmark.Total[] totals = new TspSearchBenchmark.Total[settings.length];
+		boolean isPassed = true;
+		for (int i = 0; i < settings.length; i++) {
+			totals[i] = measure(new String[0], "HeldKarp", settings[i]);
+			isPassed &= checkOptimal("HeldKarp, " + settings[i], totals[i]);
+		}
+		return isPassed
+				& checkFewerSteps(settings[0], totals[0], settings[1],
+						totals[1]);
+	}
+
+	private static boolean checkLeafSolver() throws IOException {
+		boolean isPassed = true;
+		for (int k = 0; k <= TspSearchBenchmark.MAX_LEAF_SOLVER_CITIES; k++) {
+			isPassed &= checkOptimal("HeldKarp, leaf solver up to " + k,
+					measure(TspSearchBenchmark.leafSolverProperties(k),
+							"HeldKarp", "none"));
+		}
+		return isPassed;
+	}
+
+	private static TspSearchBenchmark.Total measure(String[] properties,
+			String bound, String seeding) throws IOException {
+		return TspSearchBenchmark.measure(properties, NUMBER_OF_CITIES, SEEDS,
+				bound, seeding);
+	}
+
+	private static boolean checkOptimal(String setting,
+			TspSearchBenchmark.Total total) {
+		System.out.println(setting + " : " + total.steps + " steps, tours "
+				+ Arrays.toString(total.lengths));
+		for (int i = 0; i < SEEDS; i++) {
+			if (Math.abs(total.lengths[i] - optimalLengths[i]) > 1e-6) {
+				System.err.println("FAILED : " + setting + " found a tour of "
+						+ total.lengths[i] + " for seed " + (i + 1)
+						+ ", the optimum is " + optimalLengths[i]);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean checkFewerSteps(String setting,
+			TspSearchBenchmark.Total total, String otherSetting,
+			TspSearchBenchmark.Total other) {
+		if (total.steps >= other.steps) {
+			System.err.println("FAILED : " + setting + " took " + total.steps
+					+ " steps, no fewer than the " + other.steps + " of "
+					+ otherSetting);
+			return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Length of the optimal tour, found by a dynamic program over the subsets
+	 * of the cities
+	 */
+	private static double optimalLength(double[][] cities) {
+		int n = cities.length;
+		double[][] shortest = new double[1 << n][n];
+		for (double[] row : shortest) {
+			Arrays.fill(row, Double.POSITIVE_INFINITY);
+		}
+		shortest[1][0] = 0;
+		for (int visited = 1; visited < (1 << n); visited += 2) {
+			for (int last = 0; last < n; last++) {
+				double length = shortest[visited][last];
+				if (length == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int next = 1; next < n; next++) {
+					if ((visited & (1 << next)) == 0) {
+						int extended = visited | (1 << next);
+						shortest[extended][next] = Math.min(
+								shortest[extended][next], length
+										+ distance(cities, last, next));
+					}
+				}
+			}
+		}
+		double best = Double.POSITIVE_INFINITY;
+		for (int last = 1; last < n; last++) {
+			best = Math.min(best, shortest[(1 << n) - 1][last]
+					+ distance(cities, last, 0));
+		}
+		return best;
+	}
+
+	private static double distance(double[][] cities, int from, int to) {
+		return Math.hypot(cities[from][0] - cities[to][0], cities[from][1]
+				- cities[to][1]);
+	}
+}
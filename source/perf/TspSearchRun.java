@@ -0,0 +1,94 @@
+package perf;
+
+import java.io.IOException;
+
+import system.TspShared;
+import tasks.HeldKarpBound;
+import tasks.MinEdgeBound;
+import tasks.OneTreeBound;
+import tasks.TspBound;
+import tasks.TspGraph;
+import tasks.TspHeuristic;
+import tasks.TspTask;
+
+/**
+ * Searches one TSP instance with a single task in the calling thread, and
+ * prints the number of steps of the search, its time in milliseconds and the
+ * length of the best tour, separated by spaces, on its last line. The search
+ * is run once beforehand, so that the second, measured one runs compiled
+ * code. The comparisons of {@link TspSearchBenchmark} and
+ * {@link TspSearchCheck} run this class in a JVM of its own for each setting
+ * (see {@link ForkedJvm}).
+ *
+ * Usage: TspSearchRun cities seed bound seeding
+ *
+ * The cities are at random (see {@link LocalComputer#randomCities(int, long)}).
+ * The bound is one of MinEdge, OneTree and HeldKarp. The seeding is either
+ * heuristic, for an initial upper bound found by {@link tasks.TspHeuristic
+ * TspHeuristic} as a TSP job does, or none.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSearchRun {
+
+	static final String[] BOUNDS = { "MinEdge", "OneTree", "HeldKarp" };
+
+	public static void main(String[] args) {
+		int n = Integer.parseInt(args[0]);
+		long seed = Long.parseLong(args[1]);
+		TspBound bound = bound(args[2]);
+		boolean isSeeded = args[3].equals("heuristic");
+
+		TspGraph graph = new TspGraph(LocalComputer.randomCities(n, seed));
+		double initialBound = TspShared.INFINITY;
+		if (isSeeded) {
+			initialBound = graph.tourLength(new TspHeuristic(graph).findTour());
+		}
+		search(graph, bound, initialBound);
+		long start = System.nanoTime();
+		LocalComputer computer = search(graph, bound, initialBound);
+		double millis = (System.nanoTime() - start) / 1e6;
+		double length = ((Number) computer.getShared(0).get()).doubleValue();
+		System.out.println(computer.getUpperBoundReads() + " " + millis + " "
+				+ length);
+	}
+
+	static TspBound bound(String name) {
+		if (name.equals("MinEdge")) {
+			return new MinEdgeBound();
+		} else if (name.equals("OneTree")) {
+			return new OneTreeBound();
+		} else if (name.equals("HeldKarp")) {
+			return new HeldKarpBound();
+		}
+		throw new IllegalArgumentException("Unknown bound : " + name);
+	}
+
+	private static LocalComputer search(TspGraph graph, TspBound bound,
+			double initialBound) {
+		LocalComputer computer = new LocalComputer(new TspShared(initialBound));
+		computer.execute(new TspTask(graph, bound));
+		return computer;
+	}
+
+	/**
+	 * Runs this class in a JVM of its own
+	 *
+	 * @param properties
+	 *            System properties of the JVM, as name=value
+	 * @return Steps, time in milliseconds and length of the best tour of the
+	 *         search
+	 */
+	static double[] fork(String[] properties, int n, long seed, String bound,
+			String seeding) throws IOException {
+		String[] fields = ForkedJvm.run(properties, TspSearchRun.class,
+				Integer.toString(n), Long.toString(seed), bound, seeding)
+				.trim().split(" ");
+		double[] values = new double[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			values[i] = Double.parseDouble(fields[i]);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,125 @@
+package perf;
+
+import java.rmi.RemoteException;
+
+import system.TspShared;
+import tasks.HeldKarpBound;
+import tasks.TspGraph;
+import tasks.TspTask;
+import api.Result;
+import client.TspJob;
+
+/**
+ * Compares whole TSP jobs on a cluster in this JVM (see {@link LocalCluster})
+ * with and without the length of a heuristic tour as their initial upper
+ * bound. A seeded job is run by a {@link client.TspJob TspJob}, whose time
+ * includes the heuristic, and an unseeded one by a root
+ * {@link tasks.TspTask TspTask} with an infinite initial upper bound. Both use
+ * the HeldKarp bound. The total time over random instances of each size is
+ * reported, and an unseeded job which finds a tour of another length is
+ * reported as a mismatch.
+ *
+ * Usage: TspSeedingBenchmark [computers [workers [seeds [cities ...]]]]
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSeedingBenchmark {
+
+	private static final int DEFAULT_COMPUTERS = 3;
+	private static final int DEFAULT_WORKERS = 1;
+	private static final int DEFAULT_SEEDS = 3;
+	private static final int[] DEFAULT_CITIES = { 15, 16, 17, 18, 19, 20 };
+
+	// Time given to the proxies to register and go idle before the first job
+	private static final long SETTLE_MILLIS = 200;
+
+	public static void main(String[] args) throws Exception {
+		int computers = (args.length > 0) ? Integer.parseInt(args[0])
+				: DEFAULT_COMPUTERS;
+		int workers = (args.length > 1) ? Integer.parseInt(args[1])
+				: DEFAULT_WORKERS;
+		int seeds = (args.length > 2) ? Integer.parseInt(args[2])
+				: DEFAULT_SEEDS;
+		int[] cities = DEFAULT_CITIES;
+		if (args.length > 3) {
+			cities = new int[args.length - 3];
+			for (int i = 0; i < cities.length; i++) {
+				cities[i] = Integer.parseInt(args[i + 3]);
+			}
+		}
+
+		LocalCluster cluster = new LocalCluster(computers, workers);
+		Thread.sleep(SETTLE_MILLIS);
+
+		// Warm up both kinds of job, so that compiled code is measured
+		for (int seed = 1; seed <= seeds; seed++) {
+			double[][] instance = LocalComputer.randomCities(cities[0], seed);
+			runSeeded(cluster, instance);
+			runUnseeded(cluster, instance);
+		}
+
+		System.out.println("Computers=" + computers + ", workers=" + workers
+				+ ", seeds 1-" + seeds + " : ms");
+		double seededTotal = 0;
+		double unseededTotal = 0;
+		for (int n : cities) {
+			double seededMillis = 0;
+			double unseededMillis = 0;
+			StringBuilder mismatches = new StringBuilder();
+			for (int seed = 1; seed <= seeds; seed++) {
+				double[][] instance = LocalComputer.randomCities(n, seed);
+				long start = System.nanoTime();
+				double seededLength = runSeeded(cluster, instance);
+				seededMillis += (System.nanoTime() - start) / 1e6;
+				start = System.nanoTime();
+				double unseededLength = runUnseeded(cluster, instance);
+				unseededMillis += (System.nanoTime() - start) / 1e6;
+				if (Math.abs(seededLength - unseededLength) > 1e-6) {
+					mismatches.append("  MISMATCH : seed " + seed + " found "
+							+ seededLength + " and " + unseededLength);
+				}
+			}
+			System.out.printf("n=%-3d  heuristic %.0f  none %.0f%s%n", n,
+					seededMillis, unseededMillis, mismatches);
+			seededTotal += seededMillis;
+			unseededTotal += unseededMillis;
+		}
+		System.out.printf("Total  heuristic %.0f  none %.0f%n", seededTotal,
+				unseededTotal);
+		cluster.shutdown();
+		System.exit(0);
+	}
+
+	/**
+	 *
+	 * @return Length of the tour found by a job seeded with a heuristic tour
+	 */
+	private static double runSeeded(LocalCluster cluster, double[][] cities)
+			throws RemoteException {
+		TspJob job = new TspJob(cities);
+		job.executeJob(cluster.getSpace());
+		return TspClusterBenchmark.tourLength(cities, job.getAllResults());
+	}
+
+	/**
+	 *
+	 * @return Length of the tour found by a job without an initial upper bound
+	 */
+	private static double runUnseeded(LocalCluster cluster, double[][] cities)
+			throws RemoteException {
+		TspGraph graph = new TspGraph(cities);
+		Result<?> r = cluster.getSpace().compute(
+				new TspTask(graph, new HeldKarpBound()),
+				new TspShared(TspShared.INFINITY));
+		if (r.getFailure() != null) {
+			throw new IllegalStateException("A task of the job failed", r
+					.getFailure());
+		}
+		int[] tour = (int[]) r.getValue();
+		if (tour == null && r.getShared() instanceof TspShared) {
+			tour = ((TspShared) r.getShared()).getTour();
+		}
+		return graph.tourLength(tour);
+	}
+}
@@ -0,0 +1,48 @@
+package perf;
+
+import java.io.IOException;
+
+/**
+ * Compares how the shared objects of TSP jobs travel between the space and
+ * the computers of a cluster, for several delays after which a ComputerProxy
+ * sends a shared object which no batch has carried by a call of its own
+ * (proxy.sharedDelayMillis). With no delay, every new shared object is sent
+ * to a busy computer at once. Each setting runs in a JVM of its own (see
+ * {@link TspSharedRun}).
+ *
+ * Usage: TspSharedBenchmark [computers [workers [cities [seeds]]]]
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSharedBenchmark {
+
+	private static final int DEFAULT_COMPUTERS = 4;
+	private static final int DEFAULT_WORKERS = 2;
+	private static final int DEFAULT_CITIES = 30;
+	private static final int DEFAULT_SEEDS = 3;
+	private static final String[] SHARED_DELAY_MILLIS = { "0", "10" };
+
+	public static void main(String[] args) throws IOException {
+		String computers = (args.length > 0) ? args[0] : Integer
+				.toString(DEFAULT_COMPUTERS);
+		String workers = (args.length > 1) ? args[1] : Integer
+				.toString(DEFAULT_WORKERS);
+		String n = (args.length > 2) ? args[2] : Integer
+				.toString(DEFAULT_CITIES);
+		String seeds = (args.length > 3) ? args[3] : Integer
+				.toString(DEFAULT_SEEDS);
+
+		System.out.println("Computers=" + computers + ", workers=" + workers
+				+ ", cities=" + n + ", seeds 1-" + seeds);
+		for (String delay : SHARED_DELAY_MILLIS) {
+			String[] fields = ForkedJvm.run(
+					new String[] { "proxy.sharedDelayMillis=" + delay },
+					TspSharedRun.class, computers, workers, n, seeds).trim()
+					.split(" ");
+			System.out.printf("delay=%-3s  setShared calls=%s, published=%s, "
+					+ "piggybacked=%s, tasks=%s, %s ms%n", delay, fields[0],
+					fields[1], fields[2], fields[3], fields[4]);
+		}
+	}
+}
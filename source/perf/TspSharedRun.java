@@ -0,0 +1,58 @@
+package perf;
+
+import client.TspJob;
+
+/**
+ * Runs TSP jobs on a cluster in this JVM (see {@link LocalCluster}), one for
+ * each random instance, and prints how their shared objects travelled, summed
+ * over the jobs, on its last line: the number of shared objects sent to the
+ * computers by calls of their own, sent to the space by the publishers of the
+ * computers, and carried to the space by the results of batches, followed by
+ * the number of tasks and the time in milliseconds, separated by spaces.
+ * {@link TspSharedBenchmark} runs this class in a JVM of its own for each
+ * setting (see {@link ForkedJvm}).
+ *
+ * Usage: TspSharedRun computers workers cities seeds
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspSharedRun {
+
+	// Time given to the proxies to register and go idle before the first job
+	private static final long SETTLE_MILLIS = 200;
+
+	// Time given to shared objects sent late by a job to arrive
+	private static final long DRAIN_MILLIS = 50;
+
+	public static void main(String[] args) throws Exception {
+		int computers = Integer.parseInt(args[0]);
+		int workers = Integer.parseInt(args[1]);
+		int n = Integer.parseInt(args[2]);
+		int seeds = Integer.parseInt(args[3]);
+
+		LocalCluster cluster = new LocalCluster(computers, workers);
+		Thread.sleep(SETTLE_MILLIS);
+		long sharedCalls = 0;
+		long published = 0;
+		long piggybacked = 0;
+		long tasks = 0;
+		long millis = 0;
+		for (int seed = 1; seed <= seeds; seed++) {
+			cluster.resetCounts();
+			long start = System.nanoTime();
+			new TspJob(LocalComputer.randomCities(n, seed)).executeJob(cluster
+					.getSpace());
+			millis += (System.nanoTime() - start) / 1000000;
+			Thread.sleep(DRAIN_MILLIS);
+			tasks += cluster.getTasks();
+			sharedCalls += cluster.getSharedCalls();
+			published += cluster.getPublishedBroadcasts();
+			piggybacked += cluster.getPiggybackedBroadcasts();
+		}
+		cluster.shutdown();
+		System.out.println(sharedCalls + " " + published + " " + piggybacked
+				+ " " + tasks + " " + millis);
+		System.exit(0);
+	}
+}
@@ -7,8 +7,9 @@ import java.io.Serializable;
 
 /**
  * The class represents a broadcast message sent by a computer to the compute
- * space. It contains a shared object that represents the message and the ID of
- * the computer which creates that new shared object.
+ * space. It contains a shared object that represents the message, the ID of
+ * the job it belongs to and the ID of the computer which creates that new
+ * shared object.
  * 
  * For example, in the branch-and-bound Travelling Salesman Problem, a broadcast
  * represents a new upper-bound value for the problem, which will be
@@ -22,6 +23,7 @@ public class Broadcast implements Serializable {
 	private static final long serialVersionUID = 8867562356400662337L;
 	private Shared<?> shared;
 	private String computerId;
+	private long jobId;
 
 	/**
 	 * 
@@ -29,10 +31,13 @@ public class Broadcast implements Serializable {
 	 *            Newly created shared object
 	 * @param computerId
 	 *            Unique ID of the computer which sends the shared object
+	 * @param jobId
+	 *            ID of the job the shared object belongs to
 	 */
-	public Broadcast(Shared<?> shared, String computerId) {
+	public Broadcast(Shared<?> shared, String computerId, long jobId) {
 		this.shared = shared;
 		this.computerId = computerId;
+		this.jobId = jobId;
 	}
 
 	/**
@@ -50,4 +55,12 @@ public class Broadcast implements Serializable {
 	public String getComputerId() {
 		return computerId;
 	}
+
+	/**
+	 * 
+	 * @return ID of the job the shared object belongs to
+	 */
+	public long getJobId() {
+		return jobId;
+	}
 }
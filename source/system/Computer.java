@@ -2,6 +2,8 @@ package system;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Map;
 
 import api.Result;
 import api.Task;
@@ -30,32 +32,115 @@ public interface Computer extends Remote {
 	 */
 	Result<?> execute(Task<?> t) throws RemoteException;
 
+	/**
+	 * Executes several tasks in a single remote call, so that fine-grained
+	 * tasks do not pay a network round trip each. The call also carries shared
+	 * objects both ways, so that most of them need no remote call of their
+	 * own. The tasks of a batch may belong to different jobs.
+	 * 
+	 * @param tasks
+	 *            Tasks to be executed on the remote machine
+	 * @param shared
+	 *            Latest shared objects of the compute space, by the ID of
+	 *            their job, which are accepted as by
+	 *            {@link #setShared(long, Shared)} before the tasks are
+	 *            executed. A job for which the space has no shared object
+	 *            yet may be missing.
+	 * @return Results of the tasks, in the same order as the tasks. Each
+	 *         result carries the best shared object of its task's job known
+	 *         to this computer once the batch is done. The result of a task
+	 *         whose job has been removed is null.
+	 * @throws java.rmi.RemoteException
+	 */
+	List<Result<?>> executeBatch(List<Task<?>> tasks,
+			Map<Long, Shared<?>> shared) throws RemoteException;
+
 	
 	/**
-	 * Sends a new value of the shared object to the compute space
+	 * Called by the compute space when computers are idle. One of the tasks
+	 * running on this computer is asked to split its remaining work into
+	 * subtasks.
 	 * 
+	 * @throws RemoteException
+	 */
+	void requestSplit() throws RemoteException;
+
+	/**
+	 * Called by running tasks to find out if they should split their
+	 * remaining work into subtasks. A pending split request is consumed by the
+	 * first task that sees it.
+	 * 
+	 * @return true if a split request was pending
+	 * @throws RemoteException
+	 */
+	boolean takeSplitRequest() throws RemoteException;
+
+	/**
+	 * Sends a new value of the shared object of a job to the compute space.
+	 * The value is visible to the tasks of the job on this computer at once,
+	 * and reaches the space a little later, with the results of the next batch
+	 * or on its own.
+	 * 
+	 * @param jobId
+	 *            ID of the job the shared object belongs to
 	 * @param proposedShared
 	 *            A new proposed value of the ({@link system.Shared Shared})
 	 *            object
+	 * @return true if the value is better than the current value of this
+	 *         computer, and has been accepted
 	 * @throws RemoteException
 	 */
-	boolean broadcast(Shared<?> proposedShared) throws RemoteException;
+	boolean broadcast(long jobId, Shared<?> proposedShared)
+			throws RemoteException;
 
 	/**
-	 * Sets the internal shared object which is present in each computer
+	 * Sets the internal shared object of a job which is present in each
+	 * computer. The compute space calls it only for a computer whose running
+	 * batches have not been followed by a new batch for a while, see
+	 * {@link #executeBatch(List, Map)}.
 	 * 
+	 * @param jobId
+	 *            ID of the job the shared object belongs to
 	 * @param proposedShared
 	 *            New shared object
 	 * @throws RemoteException
 	 */
-	void setShared(Shared<?> proposedShared) throws RemoteException;
+	void setShared(long jobId, Shared<?> proposedShared)
+			throws RemoteException;
+
+	/**
+	 * 
+	 * @param jobId
+	 *            ID of a job
+	 * @return The shared object of the job stored by the Computer
+	 * @throws RemoteException
+	 */
+	Shared<?> getShared(long jobId) throws RemoteException;
+
+	/**
+	 * Lets branch-and-bound tasks read the value of a numeric shared object
+	 * without locking or boxing. The value only ever decreases, as better
+	 * shared objects are accepted.
+	 * 
+	 * @param jobId
+	 *            ID of a job
+	 * @return The value of the shared object of the job stored by the
+	 *         Computer, Double.POSITIVE_INFINITY if it has none, or
+	 *         Double.NEGATIVE_INFINITY if the job has been removed
+	 * @throws RemoteException
+	 */
+	double getUpperBound(long jobId) throws RemoteException;
 
 	/**
+	 * Called by the compute space once a job is done or has been cancelled,
+	 * so that the computer drops the shared object it holds for the job.
+	 * Tasks of the job which reach the computer afterwards are not executed.
 	 * 
-	 * @return The shared object stored by the Computer
+	 * @param jobId
+	 *            ID of the finished job
 	 * @throws RemoteException
 	 */
-	Shared<?> getShared() throws RemoteException;
+	void removeJob(long jobId) throws RemoteException;
 
 	/**
 	 * 
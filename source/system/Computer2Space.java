@@ -17,9 +17,13 @@ public interface Computer2Space extends java.rmi.Remote {
 	 * @param computer
 	 *            Registers a remote computer with the resource allocator that
 	 *            manages the cluster operations
+	 * @param numberOfWorkers
+	 *            Number of tasks the computer can execute concurrently,
+	 *            usually its number of cores
 	 * @throws java.rmi.RemoteException
 	 */
-	void register(Computer computer) throws RemoteException;
+	void register(Computer computer, int numberOfWorkers)
+			throws RemoteException;
 
 	/**
 	 * Used by ({@link system.Computer Computer}) Objects to communicate new
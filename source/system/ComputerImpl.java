@@ -5,6 +5,18 @@ import java.rmi.Naming;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 import api.Result;
 import api.Task;
@@ -21,19 +33,98 @@ import api.Task;
 public class ComputerImpl extends UnicastRemoteObject implements Computer {
 
 	private static final long serialVersionUID = -4634299253959618077L;
-	private Shared<?> shared;
+
+	/*
+	 * Time a new shared object waits for the results of a batch to carry it
+	 * to the space, and shortest time between two broadcasts to the space
+	 */
+	private static final long PUBLISH_INTERVAL_MILLIS = 10;
+
+	/*
+	 * Time between two log records of the publisher metrics, written while
+	 * shared objects are being accepted, -Dcomputer.metricsIntervalMillis
+	 */
+	private static final long METRICS_INTERVAL_MILLIS = Long.getLong(
+			"computer.metricsIntervalMillis", 10000);
+	// Number of removed jobs whose late tasks are still recognised
+	private static final int MAX_REMOVED_JOBS = 1024;
+	private static final Logger logger = Logger.getLogger(ComputerImpl.class
+			.getName());
+
+	/*
+	 * Shared objects of the jobs which have tasks on this computer. The array
+	 * is replaced under this computer's lock whenever a job is added or
+	 * removed, so that it is read by the workers without locking.
+	 */
+	private volatile Job[] jobs;
+
+	/*
+	 * IDs of the most recently removed jobs, guarded by this computer's lock.
+	 * A batch may still be on its way when the space removes its job, and
+	 * its tasks must not bring the job back.
+	 */
+	private Map<Long, Boolean> removedJobs;
 	private Computer2Space space;
 	private String id;
-	
+	private int numberOfWorkers;
+	private ForkJoinPool workers;
+	private AtomicInteger splitRequests;
+
+	// Publisher metrics
+	private final AtomicLong acceptedBroadcasts;
+	private final AtomicLong publishedBroadcasts;
+	private final AtomicLong piggybackedBroadcasts;
+	private final AtomicLong totalStalenessNanos;
+	private final AtomicLong maxStalenessNanos;
+	private final long startTime;
+
 	/**
 	 * Sets up the server for execution
 	 * 
+	 * @param space
+	 *            Compute space this computer registers with
+	 * @param numberOfWorkers
+	 *            Number of tasks executed concurrently by this computer
 	 * @throws RemoteException
 	 */
-	public ComputerImpl(Computer2Space space) throws RemoteException {
+	public ComputerImpl(Computer2Space space, int numberOfWorkers)
+			throws RemoteException {
 		super();
 		this.space=space;
-		this.shared = new TspShared(TspShared.INFINITY);
+		this.jobs = new Job[0];
+		this.removedJobs = new LinkedHashMap<Long, Boolean>() {
+			private static final long serialVersionUID = 3406513834413806226L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+				return size() > MAX_REMOVED_JOBS;
+			}
+		};
+		this.numberOfWorkers = numberOfWorkers;
+		this.workers = new ForkJoinPool(numberOfWorkers);
+		this.splitRequests = new AtomicInteger();
+		this.acceptedBroadcasts = new AtomicLong();
+		this.publishedBroadcasts = new AtomicLong();
+		this.piggybackedBroadcasts = new AtomicLong();
+		this.totalStalenessNanos = new AtomicLong();
+		this.maxStalenessNanos = new AtomicLong();
+		this.startTime = System.nanoTime();
+		Thread publisher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				publish();
+			}
+		}, "BoundPublisher");
+		publisher.setDaemon(true);
+		publisher.start();
+	}
+
+	/**
+	 * 
+	 * @return Number of tasks executed concurrently by this computer
+	 */
+	public int getNumberOfWorkers() {
+		return this.numberOfWorkers;
 	}
 
 	
@@ -42,34 +133,414 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 	 */
 	@Override
 	public Result<?> execute(Task<?> t) {
+		synchronized (this) {
+			if (addJob(t.getJobId()) == null) {
+				return null;
+			}
+		}
+		return run(t);
+	}
+
+	private Result<?> run(Task<?> t) {
 		t.setComputer(this);
-		return t.execute();
+		long startTime = System.nanoTime();
+		Result<?> r = t.execute();
+		if (r != null) {
+			r.setTaskRunTime(System.nanoTime() - startTime);
+		}
+		return r;
 	}
 
+	/**
+	 * Tasks of the batch are executed concurrently by the local pool of
+	 * workers, which is shared by all batches in flight on this computer. The
+	 * jobs of the tasks are known to this computer from then on, until the
+	 * space removes them. Tasks of a job which has been removed already are
+	 * not executed, and their results are null. A task which throws an
+	 * exception has it returned in its result (see
+	 * {@link api.Result#getFailure()}), so that only its job fails, while
+	 * RemoteException is left to failures of the computer itself.
+	 * 
+	 * @see system.Computer#executeBatch(List, Map)
+	 */
 	@Override
-	public void setShared(Shared<?> shared) {
-		this.shared=shared;
-		
+	public List<Result<?>> executeBatch(List<Task<?>> tasks,
+			Map<Long, Shared<?>> spaceShared) throws RemoteException {
+		boolean[] isRemoved = new boolean[tasks.size()];
+		synchronized (this) {
+			for (int i = 0; i < tasks.size(); i++) {
+				isRemoved[i] = (addJob(tasks.get(i).getJobId()) == null);
+			}
+			for (Map.Entry<Long, Shared<?>> e : spaceShared.entrySet()) {
+				setShared(e.getKey(), e.getValue());
+			}
+		}
+		List<Callable<Result<?>>> calls = new Vector<Callable<Result<?>>>(
+				tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			final Task<?> t = tasks.get(i);
+			if (isRemoved[i]) {
+				calls.add(new Callable<Result<?>>() {
+					@Override
+					public Result<?> call() {
+						return null;
+					}
+				});
+				continue;
+			}
+			calls.add(new Callable<Result<?>>() {
+				@Override
+				public Result<?> call() {
+					try {
+						return run(t);
+					} catch (RuntimeException e) {
+						return failed(e);
+					}
+				}
+			});
+		}
+		List<Result<?>> results = new Vector<Result<?>>(tasks.size());
+		try {
+			for (Future<Result<?>> f : workers.invokeAll(calls)) {
+				try {
+					results.add(f.get());
+				} catch (ExecutionException e) {
+					results.add(failed(e.getCause()));
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RemoteException("Batch execution interrupted", e);
+		}
+		piggyback(tasks, results);
+		return results;
 	}
 
-	
-	
+	/*
+	 * Result of a task which has thrown an exception
+	 */
+	private static Result<?> failed(Throwable failure) {
+		Result<?> r = new ResultImpl<Object>();
+		r.setFailure(failure);
+		return r;
+	}
+
+	/*
+	 * Attaches the best local shared object of each task's job to the task's
+	 * result. Since it is at least as good as any unpublished one, the
+	 * publisher thread has nothing left to send for that job.
+	 */
+	private synchronized void piggyback(List<Task<?>> tasks,
+			List<Result<?>> results) {
+		for (int i = 0; i < results.size(); i++) {
+			Result<?> r = results.get(i);
+			Job job = findJob(tasks.get(i).getJobId());
+			if (r != null && job != null) {
+				r.setShared(job.shared);
+				if (job.unpublished != null) {
+					job.unpublished = null;
+					piggybackedBroadcasts.incrementAndGet();
+				}
+			}
+		}
+	}
 
+	/**
+	 * At most one pending split request is kept per worker, since a running
+	 * task splits all of its remaining work at once.
+	 */
 	@Override
-	public synchronized boolean broadcast(Shared<?> proposedShared) throws RemoteException{
+	public void requestSplit() {
+		if (splitRequests.get() < numberOfWorkers) {
+			splitRequests.incrementAndGet();
+		}
+	}
 
-		if (proposedShared.isNewerThan(shared)) {
-			shared = proposedShared;
-			space.broadcast(new Broadcast(this.shared, this.getId()));
-			return true;
+	@Override
+	public boolean takeSplitRequest() {
+		int pending = splitRequests.get();
+		while (pending > 0) {
+			if (splitRequests.compareAndSet(pending, pending - 1)) {
+				return true;
+			}
+			pending = splitRequests.get();
 		}
 		return false;
 	}
 
+	/**
+	 * Keeps the existing shared object if a local worker has already found a
+	 * better one. An unpublished local object which is no better than the
+	 * new one is dropped, since the space already knows a better value.
+	 */
+	@Override
+	public synchronized void setShared(long jobId, Shared<?> shared) {
+		Job job = addJob(jobId);
+		if (job != null && shared.isNewerThan(job.shared)) {
+			job.shared = shared;
+			job.lowerUpperBound(shared);
+			if (job.unpublished != null && shared.isNewerThan(job.unpublished)) {
+				job.unpublished = null;
+			}
+		}
+	}
+
+	/**
+	 * The new shared object is visible to every local worker as soon as this
+	 * method accepts it. It is sent to the space later by the publisher
+	 * thread (see {@link #publish()}), so that local workers are never held
+	 * up by the network. Objects of a job which the space has removed are
+	 * rejected.
+	 */
+	@Override
+	public synchronized boolean broadcast(long jobId, Shared<?> proposedShared) {
+		Job job = findJob(jobId);
+		if (job == null || !proposedShared.isNewerThan(job.shared)) {
+			return false;
+		}
+		job.shared = proposedShared;
+		job.lowerUpperBound(proposedShared);
+		if (job.unpublished == null) {
+			job.unpublishedSince = System.nanoTime();
+			notifyAll();
+		}
+		job.unpublished = proposedShared;
+		acceptedBroadcasts.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Sends locally accepted shared objects to the space, at most once every
+	 * {@link #PUBLISH_INTERVAL_MILLIS} milliseconds. Objects of a job accepted
+	 * within an interval are coalesced, so that only the best of them is sent.
+	 * An object is sent only if no batch has carried it to the space within an
+	 * interval of its acceptance, which happens when all local tasks of its
+	 * job run for long.
+	 */
+	private void publish() {
+		long interval = TimeUnit.MILLISECONDS.toNanos(PUBLISH_INTERVAL_MILLIS);
+		long metricsInterval = TimeUnit.MILLISECONDS
+				.toNanos(METRICS_INTERVAL_MILLIS);
+		long lastPublished = System.nanoTime() - interval;
+		long nextMetrics = System.nanoTime() + metricsInterval;
+		long loggedBroadcasts = 0;
+		List<Job> due = new Vector<Job>();
+		List<Shared<?>> toPublish = new Vector<Shared<?>>();
+		List<Long> since = new Vector<Long>();
+		try {
+			while (true) {
+				if (System.nanoTime() - nextMetrics >= 0) {
+					long accepted = acceptedBroadcasts.get();
+					if (accepted != loggedBroadcasts) {
+						logMetrics();
+						loggedBroadcasts = accepted;
+					}
+					nextMetrics = System.nanoTime() + metricsInterval;
+				}
+				synchronized (this) {
+					long next = Long.MAX_VALUE;
+					for (Job job : jobs) {
+						if (job.unpublished != null) {
+							next = Math.min(next, Math.max(lastPublished,
+									job.unpublishedSince)
+									+ interval);
+						}
+					}
+					if (next == Long.MAX_VALUE
+							&& acceptedBroadcasts.get() == loggedBroadcasts) {
+						wait();
+						continue;
+					}
+					long delay = Math.min(next, nextMetrics) - System.nanoTime();
+					if (delay > 0) {
+						TimeUnit.NANOSECONDS.timedWait(this, delay);
+						continue;
+					}
+					if (next == Long.MAX_VALUE || next - System.nanoTime() > 0) {
+						continue;
+					}
+					long now = System.nanoTime();
+					for (Job job : jobs) {
+						if (job.unpublished != null
+								&& job.unpublishedSince + interval <= now) {
+							due.add(job);
+							toPublish.add(job.unpublished);
+							since.add(job.unpublishedSince);
+							job.unpublished = null;
+						}
+					}
+				}
+				for (int i = 0; i < due.size(); i++) {
+					try {
+						space.broadcast(new Broadcast(toPublish.get(i), this
+								.getId(), due.get(i).jobId));
+					} catch (RemoteException e) {
+						e.printStackTrace();
+					}
+					lastPublished = System.nanoTime();
+					long staleness = lastPublished - since.get(i);
+					publishedBroadcasts.incrementAndGet();
+					totalStalenessNanos.addAndGet(staleness);
+					long max = maxStalenessNanos.get();
+					while (staleness > max
+							&& !maxStalenessNanos.compareAndSet(max, staleness)) {
+						max = maxStalenessNanos.get();
+					}
+				}
+				due.clear();
+				toPublish.clear();
+				since.clear();
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Writes the publisher metrics of this computer to its log
+	 */
+	private void logMetrics() {
+		logger.info(String.format("Computer %s : accepted=%d, published=%d, "
+				+ "piggybacked=%d, rate=%.2f/s, staleness mean=%.2f ms, "
+				+ "max=%.2f ms", getId(), getAcceptedBroadcasts(),
+				getPublishedBroadcasts(), getPiggybackedBroadcasts(),
+				getBroadcastRate(), getMeanStalenessMillis(),
+				getMaxStalenessMillis()));
+	}
+
+	/**
+	 * 
+	 * @return Number of shared objects accepted from local workers
+	 */
+	public long getAcceptedBroadcasts() {
+		return acceptedBroadcasts.get();
+	}
+
+	/**
+	 * 
+	 * @return Number of shared objects sent to the space by remote calls of
+	 *         their own. The difference to {@link #getAcceptedBroadcasts()} is
+	 *         the number of objects which were carried by the results of a
+	 *         batch, coalesced or superseded by the space.
+	 */
+	public long getPublishedBroadcasts() {
+		return publishedBroadcasts.get();
+	}
+
+	/**
+	 * 
+	 * @return Number of times the results of a batch have carried a shared
+	 *         object to the space before the publisher thread sent it
+	 */
+	public long getPiggybackedBroadcasts() {
+		return piggybackedBroadcasts.get();
+	}
+
+	/**
+	 * 
+	 * @return Number of shared objects sent to the space per second, since
+	 *         this computer was created
+	 */
+	public double getBroadcastRate() {
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		return publishedBroadcasts.get() / seconds;
+	}
+
+	/**
+	 * 
+	 * @return Mean time in milliseconds from the local acceptance of a shared
+	 *         object until it had been sent to the space
+	 */
+	public double getMeanStalenessMillis() {
+		long published = publishedBroadcasts.get();
+		if (published == 0) {
+			return 0.0d;
+		}
+		return totalStalenessNanos.get() / 1e6 / published;
+	}
+
+	/**
+	 * 
+	 * @return Longest time in milliseconds from the local acceptance of a
+	 *         shared object until it had been sent to the space
+	 */
+	public double getMaxStalenessMillis() {
+		return maxStalenessNanos.get() / 1e6;
+	}
+
 	
 	@Override
-	public synchronized Shared<?> getShared() {
-		return this.shared;
+	public Shared<?> getShared(long jobId) {
+		Job job = findJob(jobId);
+		return (job == null) ? null : job.shared;
+	}
+
+	/**
+	 * A job is known to this computer from the time its first tasks arrive,
+	 * so a job which is not known has been removed by the space. Its
+	 * upper-bound is Double.NEGATIVE_INFINITY, so that the remaining work of
+	 * its running tasks is pruned at once.
+	 */
+	@Override
+	public double getUpperBound(long jobId) {
+		Job job = findJob(jobId);
+		if (job == null) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return Double.longBitsToDouble(job.upperBound.get());
+	}
+
+	/**
+	 * The job is remembered as removed, so that tasks and shared objects of
+	 * the job which arrive later are dropped instead of adding it again.
+	 */
+	@Override
+	public synchronized void removeJob(long jobId) {
+		removedJobs.put(jobId, Boolean.TRUE);
+		Job[] current = jobs;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i].jobId == jobId) {
+				Job[] next = new Job[current.length - 1];
+				System.arraycopy(current, 0, next, 0, i);
+				System.arraycopy(current, i + 1, next, i, next.length - i);
+				jobs = next;
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Looks up a job without locking. Only a handful of jobs run at the same
+	 * time, so a linear scan is cheaper than a hash lookup.
+	 */
+	private Job findJob(long jobId) {
+		for (Job job : jobs) {
+			if (job.jobId == jobId) {
+				return job;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Looks up a job, adding it if this computer does not know it yet. Must be
+	 * called with this computer's lock held.
+	 * 
+	 * @return The job, or null if the space has removed it
+	 */
+	private Job addJob(long jobId) {
+		Job job = findJob(jobId);
+		if (job == null) {
+			if (removedJobs.containsKey(jobId)) {
+				return null;
+			}
+			job = new Job(jobId);
+			Job[] current = jobs;
+			Job[] next = new Job[current.length + 1];
+			System.arraycopy(current, 0, next, 0, current.length);
+			next[current.length] = job;
+			jobs = next;
+		}
+		return job;
 	}
 
 	
@@ -86,6 +557,49 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 		this.id=id;
 	}
 	
+	/*
+	 * Shared object of a job on this computer. The fields other than the
+	 * upper-bound are guarded by the computer's lock.
+	 */
+	private static class Job {
+		private final long jobId;
+		private volatile Shared<?> shared;
+
+		// Bits of the double value of the shared object, lowered by CAS
+		private final AtomicLong upperBound;
+
+		/*
+		 * Best shared object accepted locally which has not been sent to the
+		 * space yet, and the time at which it was accepted
+		 */
+		private Shared<?> unpublished;
+		private long unpublishedSince;
+
+		private Job(long jobId) {
+			this.jobId = jobId;
+			this.shared = new TspShared(TspShared.INFINITY);
+			this.upperBound = new AtomicLong(Double
+					.doubleToLongBits(Double.POSITIVE_INFINITY));
+		}
+
+		/*
+		 * Lowers the upper-bound to the value of a numeric shared object with
+		 * a CAS loop, so that it is never raised by a late update
+		 */
+		private void lowerUpperBound(Shared<?> newShared) {
+			if (!(newShared.get() instanceof Number)) {
+				return;
+			}
+			double value = ((Number) newShared.get()).doubleValue();
+			long current = upperBound.get();
+			while (value < Double.longBitsToDouble(current)
+					&& !upperBound.compareAndSet(current, Double
+							.doubleToLongBits(value))) {
+				current = upperBound.get();
+			}
+		}
+	}
+
 	/**
 	 * 
 	 * Register Computer objects to the compute space
@@ -100,8 +614,9 @@ public class ComputerImpl extends UnicastRemoteObject implements Computer {
 			Computer2Space space = (Computer2Space) Naming.lookup("//"
 					+ computeSpaceServer + "/" + Computer2Space.SERVICE_NAME);
 			
-			ComputerImpl comp = new ComputerImpl(space);
-			space.register(comp);
+			ComputerImpl comp = new ComputerImpl(space, Runtime.getRuntime()
+					.availableProcessors());
+			space.register(comp, comp.getNumberOfWorkers());
 			
 			System.out.println("Computer ready");
 		} catch (RemoteException e) {
@@ -2,8 +2,16 @@ package system;
 
 import java.io.IOException;
 import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
@@ -21,11 +29,23 @@ import api.Task;
  * class is responsible for execution of {@link api.Task Task} objects in the
  * registered remote computers.
  * 
- * Each proxy maintains a queue of tasks that need to be executed one after the
+ * Each proxy maintains a deque of tasks that need to be executed one after the
  * other on a remote machine. These tasks can either represent the Divide phase
  * or the Conquer phase in the <a
  * href="http://en.wikipedia.org/wiki/Divide_and_conquer_algorithm">Divide and
- * conquer algorithm</a>.
+ * conquer algorithm</a>. As in the <a
+ * href="http://en.wikipedia.org/wiki/Cilk">Cilk</a> scheduler, a proxy pushes
+ * and pops its own child tasks at the head of its deque (depth-first), and an
+ * idle proxy steals the oldest task at the tail of another proxy's deque.
+ * 
+ * A proxy keeps up to PIPELINE_DEPTH batches of tasks in flight per worker of
+ * its computer. A single dispatcher thread per proxy sends the batches, whose
+ * remote calls are run by the space's pool of call threads, and consumes
+ * their results once they have been posted back. While a batch's results
+ * travel back and are consumed, the computer's workers go on with the other
+ * batches instead of waiting for a full round trip. An idle dispatcher sleeps
+ * until it is signalled that there are tasks to take or steal, or results to
+ * consume.
  * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
@@ -33,13 +53,69 @@ import api.Task;
  */
 public class ComputerProxy implements Runnable {
 	private static final String LOG_FILE_PREFIX = "/cs/student/kowshik/computerproxy_";
+
+	// Batches kept in flight per worker of the computer, -Dproxy.pipelineDepth
+	private static final int PIPELINE_DEPTH = Integer.getInteger(
+			"proxy.pipelineDepth", 2);
+
+	/*
+	 * Time between two split requests of a proxy whose computer has idle
+	 * workers, while another proxy is busy
+	 */
+	private static final long SPLIT_REQUEST_INTERVAL_MILLIS = 20;
+
+	// Upper limit on the number of tasks shipped in one remote call
+	private static final int MAX_BATCH_SIZE = 64;
+
+	// Targeted ratio of remote execution time to round trip overhead of a batch
+	private static final double LATENCY_FACTOR = 4;
+
+	// Weight of the latest batch in the running averages of task time and latency
+	private static final double EWMA_WEIGHT = 0.25;
+
+	/*
+	 * Time a new shared object waits to be carried by a batch before it is
+	 * sent to a busy computer on its own, -Dproxy.sharedDelayMillis
+	 */
+	private static final long SHARED_DELAY_MILLIS = Long.getLong(
+			"proxy.sharedDelayMillis", 10);
 	private Computer compObj;
 	private SpaceImpl space;
-	private Thread t;
-	private LinkedBlockingQueue<Task<?>> tasks;
+	private volatile boolean isAlive;
+	private int numberOfWorkers;
+	private AtomicInteger batchesInFlight;
+	private LinkedBlockingDeque<Task<?>> tasks;
+
+	/*
+	 * Permits for the remote calls in flight, batches whose calls have
+	 * returned, whether the dispatcher waits for a split it has asked a busy
+	 * proxy for, and when it asked last
+	 */
+	private int maxBatchesInFlight;
+	private Semaphore callPermits;
+	private ConcurrentLinkedQueue<Completion> completions;
+	private boolean isAwaitingSplit;
+	private long lastSplitRequest;
+
+	// Wakes up the dispatcher, guarded by signalLock
+	private final Object signalLock = new Object();
+	private boolean isSignalled;
 	private String id;
 	private Logger logger;
 	private Handler handler;
+	private int batchSize;
+	private double avgTaskTime;
+	private double avgLatency;
+
+	/*
+	 * Latest shared object of each running job offered to the computer, and
+	 * the jobs which have finished since the last remote call sending shared
+	 * objects, all guarded by sharedLock
+	 */
+	private final Object sharedLock = new Object();
+	private Map<Long, PendingShared> pendingShared;
+	private List<Long> removedJobs;
+	private boolean isSendingShared;
 
 	/**
 	 * 
@@ -49,14 +125,21 @@ public class ComputerProxy implements Runnable {
 	 * @param space
 	 *            Implementation of ({@link api.Client2Space Space}) which is
 	 *            responsible for maintaining each instance of this class
+	 * @param numberOfWorkers
+	 *            Number of tasks the computer can execute concurrently
 	 * @throws RemoteException
 	 */
-	public ComputerProxy(Computer compObj, SpaceImpl space)
+	public ComputerProxy(Computer compObj, SpaceImpl space, int numberOfWorkers)
 			throws RemoteException {
 		this.compObj = compObj;
 		this.space = space;
-		this.tasks = new LinkedBlockingQueue<Task<?>>();
+		this.tasks = new LinkedBlockingDeque<Task<?>>();
 		this.id = getRandomProxyName();
+		this.batchSize = 1;
+		this.batchesInFlight = new AtomicInteger();
+		this.completions = new ConcurrentLinkedQueue<Completion>();
+		this.pendingShared = new HashMap<Long, PendingShared>();
+		this.removedJobs = new Vector<Long>();
 		compObj.setId(id);
 		this.logger = Logger.getLogger("ComputerProxy" + id);
 		this.logger.setUseParentHandlers(false);
@@ -71,9 +154,11 @@ public class ComputerProxy implements Runnable {
 		}
 		this.handler.setFormatter(new SimpleFormatter());
 		logger.addHandler(handler);
-		t = new Thread(this, "ComputerProxy " + this.id);
-
-		t.start();
+		this.isAlive = true;
+		this.numberOfWorkers = numberOfWorkers;
+		this.maxBatchesInFlight = numberOfWorkers * PIPELINE_DEPTH;
+		this.callPermits = new Semaphore(maxBatchesInFlight);
+		new Thread(this, "ComputerProxy " + this.id).start();
 
 	}
 
@@ -81,167 +166,628 @@ public class ComputerProxy implements Runnable {
 		return id;
 	}
 
-	public synchronized void setShared(Shared<?> newShared)
-			throws RemoteException {
-		compObj.setShared(newShared);
+	/**
+	 * Offers a new shared object of a job to the computer without waiting for
+	 * it to be sent. The object is carried by the next batch of the job's
+	 * tasks dispatched to the computer. Only if no batch has carried it within
+	 * SHARED_DELAY_MILLIS, while the computer is still running earlier
+	 * batches, is it sent by a remote call of its own. At most one such call
+	 * per proxy is in progress at any time, and it always sends the latest
+	 * objects offered, so that versions which are superseded in the meantime
+	 * are never sent.
+	 * 
+	 * @param jobId
+	 *            ID of the job the shared object belongs to
+	 * @param newShared
+	 *            New shared object of the job
+	 * @param version
+	 *            Version of the shared object, which grows with every shared
+	 *            object of the job accepted by the space
+	 */
+	public void offerShared(long jobId, Shared<?> newShared, long version) {
+		synchronized (sharedLock) {
+			// The job may have finished while the object was being fanned out
+			if (!space.isRunning(jobId)) {
+				return;
+			}
+			PendingShared pending = pendingShared.get(jobId);
+			if (pending == null) {
+				pending = new PendingShared();
+				pendingShared.put(jobId, pending);
+			}
+			if (version <= pending.version) {
+				return;
+			}
+			pending.shared = newShared;
+			pending.version = version;
+			if (isSendingShared) {
+				return;
+			}
+			isSendingShared = true;
+		}
+		scheduleSendShared();
 	}
 
 	/**
-	 * Loops infinitely and attempts to fetch a {@link api.Task Task} object
-	 * from the proxy's queue and executes it. If the thread is interrupted, the
-	 * task is returned to the compute space's queue. If the task execution is
-	 * successful, then the {@link api.Result Result} produced is also added to
-	 * compute space's queue of {@link api.Result Result} objects.
+	 * Forgets the shared object of a finished job, and has the computer drop
+	 * its own copy. The computer is told by the same thread which sends shared
+	 * objects, so that no late object can bring the job back to life on it.
 	 * 
-	 * These tasks can either represent the Divide phase or the Conquer phase in
-	 * the <a
-	 * href="http://en.wikipedia.org/wiki/Divide_and_conquer_algorithm">Divide
-	 * and conquer algorithm</a>. Divide tasks are represented by the DECOMPOSE
-	 * status and Conquer tasks are represented by the CONQUER status. The proxy
-	 * switches the status of the task to COMPOSE, immediately after the Divide
-	 * phase is over.
+	 * @param jobId
+	 *            ID of the finished job
+	 */
+	public void removeJob(long jobId) {
+		synchronized (sharedLock) {
+			pendingShared.remove(jobId);
+			removedJobs.add(jobId);
+			if (isSendingShared) {
+				return;
+			}
+			isSendingShared = true;
+		}
+		scheduleSendShared();
+	}
+
+	private void scheduleSendShared() {
+		space.sendLater(new Runnable() {
+			@Override
+			public void run() {
+				sendShared();
+			}
+		}, SHARED_DELAY_MILLIS);
+	}
+
+	/*
+	 * Sends the latest offered shared objects to the computer, except those
+	 * which a batch has carried there already, or all of them if the computer
+	 * has no batch to apply them to. Finished jobs are removed from the
+	 * computer. Objects offered during the calls are sent after another delay.
+	 */
+	private void sendShared() {
+		List<Long> jobIds = new Vector<Long>();
+		List<PendingShared> toSend = new Vector<PendingShared>();
+		List<Long> toRemove;
+		synchronized (sharedLock) {
+			if (!isAlive) {
+				isSendingShared = false;
+				return;
+			}
+			if (isBusy()) {
+				for (Map.Entry<Long, PendingShared> e : pendingShared
+						.entrySet()) {
+					PendingShared pending = e.getValue();
+					if (pending.version > pending.sentVersion) {
+						jobIds.add(e.getKey());
+						toSend.add(pending.copy());
+					}
+				}
+			}
+			toRemove = new Vector<Long>(removedJobs);
+			removedJobs.clear();
+			if (toSend.isEmpty() && toRemove.isEmpty()) {
+				isSendingShared = false;
+				return;
+			}
+		}
+		try {
+			for (int i = 0; i < toSend.size(); i++) {
+				compObj.setShared(jobIds.get(i), toSend.get(i).shared);
+			}
+			for (long jobId : toRemove) {
+				compObj.removeJob(jobId);
+			}
+		} catch (RemoteException e) {
+			e.printStackTrace();
+			synchronized (sharedLock) {
+				isSendingShared = false;
+			}
+			return;
+		}
+		synchronized (sharedLock) {
+			boolean isPending = !removedJobs.isEmpty();
+			for (int i = 0; i < toSend.size(); i++) {
+				PendingShared pending = pendingShared.get(jobIds.get(i));
+				if (pending != null) {
+					pending.sentVersion = Math.max(pending.sentVersion, toSend
+							.get(i).version);
+				}
+			}
+			for (PendingShared pending : pendingShared.values()) {
+				isPending |= pending.version > pending.sentVersion;
+			}
+			if (!isPending) {
+				isSendingShared = false;
+				return;
+			}
+		}
+		scheduleSendShared();
+	}
+
+	/*
+	 * Takes the latest offered shared objects of the jobs of a batch's tasks,
+	 * to be carried by the batch. Tasks of jobs which have finished or have
+	 * been cancelled are dropped from the batch. This is done under
+	 * sharedLock, so that no task reaches the computer after the job has been
+	 * removed from it.
+	 */
+	private Map<Long, Shared<?>> takeShared(List<Task<?>> batch) {
+		Map<Long, Shared<?>> carried = new HashMap<Long, Shared<?>>();
+		synchronized (sharedLock) {
+			for (ListIterator<Task<?>> it = batch.listIterator(); it.hasNext();) {
+				long jobId = it.next().getJobId();
+				if (!space.isRunning(jobId)) {
+					it.remove();
+					continue;
+				}
+				PendingShared pending = pendingShared.get(jobId);
+				if (pending != null && !carried.containsKey(jobId)) {
+					pending.sentVersion = pending.version;
+					carried.put(jobId, pending.shared);
+				}
+			}
+		}
+		return carried;
+	}
+
+	/**
+	 * Loops infinitely as the dispatcher of this proxy. It consumes the
+	 * results of the batches whose remote calls have returned, and as long as
+	 * fewer than PIPELINE_DEPTH batches per worker are in flight, fetches
+	 * {@link api.Task Task} objects from the proxy's deque (or by stealing)
+	 * and sends them to the remote computer. Otherwise it sleeps until it is
+	 * signalled. Once the computer has died, its tasks are returned to the
+	 * compute space.
+	 * 
+	 * Tasks are shipped to the remote computer in batches, see
+	 * {@link system.Computer#executeBatch(List, Map)}. Each batch carries the
+	 * latest shared objects of its tasks' jobs to the computer, and its
+	 * results carry the best ones of the computer back to the space.
 	 */
 	public void run() {
-		boolean isAlive = true;
-		while (isAlive) {
-			if (!tasks.isEmpty()) {
+		while (true) {
+			Completion done;
+			while ((done = completions.poll()) != null) {
+				complete(done);
+			}
+			if (!isAlive) {
+				// Every call has returned, or failed, once all permits are back
+				if (callPermits.availablePermits() == maxBatchesInFlight) {
+					while ((done = completions.poll()) != null) {
+						complete(done);
+					}
+					reassignTasks();
+					return;
+				}
+			} else if (callPermits.tryAcquire()) {
+				List<Task<?>> batch = nextBatch();
+				if (batch != null) {
+					Map<Long, Shared<?>> shared = takeShared(batch);
+					if (batch.isEmpty()) {
+						callPermits.release();
+					} else {
+						send(batch, shared);
+					}
+					continue;
+				}
+				callPermits.release();
+			}
+			try {
+				park();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
 
-				Task<?> aTask = null;
+	/*
+	 * Has the space's call threads ship a batch to the remote computer, and
+	 * post its results back to the dispatcher
+	 */
+	private void send(final List<Task<?>> batch,
+			final Map<Long, Shared<?>> shared) {
+
+		// A proxy which has become busy can be asked for a split
+		if (batchesInFlight.getAndIncrement() == 0) {
+			space.signalWork();
+		}
+		space.executeCall(new Runnable() {
+			@Override
+			public void run() {
+				long startTime = System.nanoTime();
 				try {
-					aTask = tasks.take();
-					
-					Result<?> r = null;
-					switch (aTask.getStatus()) {
-					case DECOMPOSE:
-						r = compObj.execute(aTask);
-
-						/*
-						 * This task has generated child tasks, so a successor
-						 * has to be created. Each child task is also added to
-						 * the space.
-						 */
-
-						if (r.getSubTasks() != null) {
-							Successor s = new Successor(aTask, space,
-									aTask.getDecompositionSize());
-							space.addSuccessor(s);
-
-							for (Task<?> task : r.getSubTasks()) {
-								space.put(task);
-							}
-						}
-						/*
-						 * There are no child tasks, but the DECOMPOSE stage has
-						 * returned a value. It means that this is the base case
-						 * of recursion. Base cases can be produced only during
-						 * the COMPOSE stage if the entire recursion tree has
-						 * more than one node. They can also be produced in the
-						 * DECOMPOSE stage when the entire recursion tree has
-						 * just one and only one node. For example, consider a
-						 * case where the Client passes the Fibonacci task :
-						 * F(0) or F(1) where the entire recursion tree has only
-						 * one node.
-						 */
-						else if (r.getValue() != null
-								&& (aTask.getId().equals(aTask.getParentId()))) {
-
-							space.putResult(r);
-							
-						}
-						/*
-						 * If the DECOMPOSE stage has neither returned sub tasks
-						 * nor values, then the node must have been pruned in
-						 * branch-and-bound. So just pass on the null value to
-						 * the parent's closure.
-						 */
-						else {
-
-							Closure parentClosure = space.getClosure(aTask
-									.getParentId());
-							parentClosure.put(r.getValue());
-							
-
-						}
-
-						aTask.setStatus(Task.Status.COMPOSE);
-						break;
-					case COMPOSE:
-						r = compObj.execute(aTask);
-
-						/*
-						 * When the parent ID is equal to the task's ID, then it
-						 * represents the very first node of the recursion tree.
-						 * It also means that the task has completed execution,
-						 * and so the result is written into space.
-						 */
-						if (aTask.getId().equals(aTask.getParentId())) {
-							space.putResult(r);
-							Shared<?> proposedShared = compObj.getShared();
-							if((Double) compObj.getShared().get() < (Double) (space.getShared().get())){
-								space.setShared(proposedShared);
-								Broadcast newBroadcast = new Broadcast(proposedShared,compObj.getId());
-								space.broadcast(newBroadcast);
-								System.out.println("Space shared Object value:" +space.getShared().get());
-							}
-							
-						}
-						/*
-						 * Otherwise, this is just yet another COMPOSE stage in
-						 * the recursion. So, get the closure of the parent
-						 * thread from the space and write the result to it.
-						 */
-						else {
-							Closure parentClosure = space.getClosure(aTask
-									.getParentId());
-							parentClosure.put(r.getValue());
-						}
-
-						/*
-						 * Remove the successor thread that triggered this
-						 * COMPOSE stage as its life is over.
-						 */
-						space.removeSuccessor(aTask.getId());
-						
-						break;
-					}
-				} catch (InterruptedException e) {
-					e.printStackTrace();
+					List<Result<?>> results = compObj.executeBatch(batch,
+							shared);
+					completions.add(new Completion(batch, results, System
+							.nanoTime()
+							- startTime));
 				} catch (RemoteException e) {
 					System.err
 							.println("ComputerProxy : RemoteException occured in thread : "
-									+ this.t.getName());
+									+ Thread.currentThread().getName());
 					System.err.println("Reassigning task to task queue");
-					try {
-						space.put(aTask);
-						for(Task<?> t : tasks){
-							space.put(t);
-						}
-					} catch (RemoteException ex) {
-						System.err
-								.println("Unable to reassign task to task queue");
-						ex.printStackTrace();
-					}
 					isAlive = false;
-					space.removeProxy(this);
+					space.removeProxy(ComputerProxy.this);
+					for (Task<?> aTask : batch) {
+						reassign(aTask);
+					}
+				} finally {
+					batchesInFlight.decrementAndGet();
+					callPermits.release();
+					signal();
+				}
+			}
+		});
+	}
+
+	/*
+	 * Consumes the results of a batch: the best shared objects of the
+	 * computer are broadcast first, and then the result of each task is
+	 * processed
+	 */
+	private void complete(Completion done) {
+		adaptBatchSize(done.results, done.elapsedTime);
+		try {
+			Shared<?> carried = null;
+			for (int i = 0; i < done.results.size(); i++) {
+				Result<?> r = done.results.get(i);
+				if (r != null && r.getShared() != null
+						&& r.getShared() != carried) {
+					carried = r.getShared();
+					space.broadcast(new Broadcast(carried, id, done.batch.get(i)
+							.getJobId()));
+				}
+			}
+			for (int i = 0; i < done.batch.size(); i++) {
+				processResult(done.batch.get(i), done.results.get(i));
+			}
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Returns the tasks left in the deque of a dead proxy to the compute space
+	 */
+	private void reassignTasks() {
+		space.removeIdleProxy(this);
+		Task<?> aTask;
+		while ((aTask = tasks.pollFirst()) != null) {
+			reassign(aTask);
+		}
+	}
+
+	private void reassign(Task<?> aTask) {
+		try {
+			space.put(aTask);
+		} catch (RemoteException e) {
+			System.err.println("Unable to reassign task to task queue");
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Sleeps until the dispatcher is signalled, or until it may ask for a
+	 * split again if it is waiting for one. A signal raised while the
+	 * dispatcher was busy is not lost.
+	 */
+	private void park() throws InterruptedException {
+		synchronized (signalLock) {
+			if (isAwaitingSplit) {
+				long delay = lastSplitRequest + SPLIT_REQUEST_INTERVAL_MILLIS
+						- System.currentTimeMillis();
+				if (!isSignalled && delay > 0) {
+					signalLock.wait(delay);
+				}
+			} else {
+				while (!isSignalled) {
+					signalLock.wait();
+				}
+			}
+			isSignalled = false;
+		}
+		space.removeIdleProxy(this);
+	}
+
+	/**
+	 * Wakes up the dispatcher of this proxy, because there may be tasks to
+	 * take or steal, or results to consume
+	 */
+	void signal() {
+		synchronized (signalLock) {
+			isSignalled = true;
+			signalLock.notify();
+		}
+	}
+
+	/**
+	 * Consumes the result of a task executed on the remote computer.
+	 * 
+	 * These tasks can either represent the Divide phase or the Conquer phase in
+	 * the <a
+	 * href="http://en.wikipedia.org/wiki/Divide_and_conquer_algorithm">Divide
+	 * and conquer algorithm</a>. Divide tasks are represented by the DECOMPOSE
+	 * status and Conquer tasks are represented by the CONQUER status. The proxy
+	 * switches the status of the task to COMPOSE, immediately after the Divide
+	 * phase is over.
+	 * 
+	 * @param aTask
+	 *            Task that was executed
+	 * @param r
+	 *            Result returned by the remote computer for the task
+	 * @throws RemoteException
+	 */
+	private void processResult(Task<?> aTask, Result<?> r)
+			throws RemoteException {
+		// Results of a cancelled job are dropped
+		if (!space.isRunning(aTask.getJobId())) {
+			return;
+		}
+
+		// A task which has thrown an exception fails its own job only
+		if (r != null && r.getFailure() != null) {
+			space.failJob(aTask, r.getFailure());
+			return;
+		}
+		switch (aTask.getStatus()) {
+		case DECOMPOSE:
+			// Told before the subtasks are pushed, and so before they finish
+			space.decomposed(aTask, r.getSubTasks());
+
+			/*
+			 * This task has generated child tasks, so a successor
+			 * has to be created. Each child task is pushed onto
+			 * this proxy's deque.
+			 */
+
+			if (r.getSubTasks() != null) {
+				aTask.setStatus(Task.Status.COMPOSE);
+				/*
+				 * A task which was split while running also returns the
+				 * value it found before splitting, which is one more
+				 * argument of its successor.
+				 */
+				int joinCounter = r.getSubTasks().size();
+				if (r.getValue() != null) {
+					joinCounter++;
+				}
+				Successor s = new Successor(aTask, space, joinCounter);
+				space.addSuccessor(s);
+				if (r.getValue() != null) {
+					s.getClosure().put(r.getValue());
+				}
+				for (Task<?> subTask : r.getSubTasks()) {
+					subTask.setId(space.nextTaskId(aTask.getId()));
+					subTask.setParentId(aTask.getId());
+					subTask.setJobId(aTask.getJobId());
+				}
+				push(r.getSubTasks());
+			}
+			/*
+			 * There are no child tasks, but the DECOMPOSE stage has
+			 * returned a value. It means that this is the base case
+			 * of recursion. Base cases can be produced only during
+			 * the COMPOSE stage if the entire recursion tree has
+			 * more than one node. They can also be produced in the
+			 * DECOMPOSE stage when the entire recursion tree has
+			 * just one and only one node. For example, consider a
+			 * case where the Client passes the Fibonacci task :
+			 * F(0) or F(1) where the entire recursion tree has only
+			 * one node. The value of such a tree may also be null, if
+			 * branch-and-bound has pruned its only node.
+			 */
+			else if (aTask.getId() == aTask.getParentId()) {
+
+				space.putResult(aTask.getJobId(), r);
+				
+			}
+			/*
+			 * If the DECOMPOSE stage has neither returned sub tasks
+			 * nor values, then the node must have been pruned in
+			 * branch-and-bound. So just pass on the null value to
+			 * the parent's closure.
+			 */
+			else {
+
+				Closure parentClosure = space.getClosure(aTask.getJobId(),
+						aTask.getParentId());
+				if (parentClosure != null) {
+					parentClosure.put(r.getValue());
 				}
+				
 
 			}
+			break;
+		case COMPOSE:
+			/*
+			 * When the parent ID is equal to the task's ID, then it
+			 * represents the very first node of the recursion tree.
+			 * It also means that the task has completed execution,
+			 * and so the result is written into space.
+			 */
+			if (aTask.getId() == aTask.getParentId()) {
+				space.putResult(aTask.getJobId(), r);
+			}
+			/*
+			 * Otherwise, this is just yet another COMPOSE stage in
+			 * the recursion. So, get the closure of the parent
+			 * thread from the space and write the result to it.
+			 */
+			else {
+				Closure parentClosure = space.getClosure(aTask.getJobId(),
+						aTask.getParentId());
+				if (parentClosure != null) {
+					parentClosure.put(r.getValue());
+				}
+			}
+
+			/*
+			 * Remove the successor thread that triggered this
+			 * COMPOSE stage as its life is over.
+			 */
+			space.removeSuccessor(aTask.getJobId(), aTask.getId());
+			
+			break;
 		}
+	}
 
+	/**
+	 * Takes a task, if one is available, and then adds as many of the newest
+	 * tasks of this proxy's deque as the current batch size allows
+	 * 
+	 * @return Tasks to be executed in a single remote call, or null if there
+	 *         is no task to take or steal
+	 */
+	private List<Task<?>> nextBatch() {
+		Task<?> aTask = nextTask();
+		if (aTask == null) {
+			return null;
+		}
+		List<Task<?>> batch = new Vector<Task<?>>(batchSize);
+		batch.add(aTask);
+		while (batch.size() < batchSize && (aTask = tasks.pollFirst()) != null) {
+			batch.add(aTask);
+		}
+		return batch;
+	}
+
+	/**
+	 * Sizes the next batch so that the time spent executing it on the remote
+	 * computer is about LATENCY_FACTOR times the round trip overhead of a
+	 * remote call. Both times are averaged over the recent batches. Since all
+	 * workers of the computer are kept busy, a batch is assumed to share one
+	 * worker with the other PIPELINE_DEPTH - 1 batches in flight on it, so its
+	 * wall-clock time on the computer is about PIPELINE_DEPTH times its run
+	 * time.
+	 * 
+	 * @param results
+	 *            Results of the last batch
+	 * @param elapsedTime
+	 *            Wall-clock time of the last remote call, in nanoseconds
+	 */
+	private void adaptBatchSize(List<Result<?>> results,
+			long elapsedTime) {
+		long runTime = 0;
+		for (Result<?> r : results) {
+			if (r != null) {
+				runTime += r.getTaskRunTime();
+			}
+		}
+		double latency = Math.max(elapsedTime - PIPELINE_DEPTH * runTime, 0);
+		double taskTime = (double) runTime / results.size();
+		this.avgLatency += EWMA_WEIGHT * (latency - this.avgLatency);
+		this.avgTaskTime += EWMA_WEIGHT * (taskTime - this.avgTaskTime);
+		double size = Math.ceil(LATENCY_FACTOR * this.avgLatency
+				/ Math.max(this.avgTaskTime, 1));
+		this.batchSize = (int) Math.max(1, Math.min(MAX_BATCH_SIZE, size));
+	}
+
+	/**
+	 * Pops the newest task from the head of this proxy's deque. If the deque is
+	 * empty, then the proxy tries once to steal from the other proxies. The
+	 * proxy is registered as idle with the space before it looks for the last
+	 * time, so that a task pushed in the meantime wakes it up. While there is
+	 * nothing to steal and the computer has idle workers, the proxy asks the
+	 * space to have a running task split, again every
+	 * SPLIT_REQUEST_INTERVAL_MILLIS for as long as some proxy is busy. Once no
+	 * proxy is busy, it sleeps until a proxy becomes busy or a task arrives.
+	 * 
+	 * @return Next task to be executed on the remote computer, or null if
+	 *         there is none
+	 */
+	private Task<?> nextTask() {
+		Task<?> aTask = tasks.pollFirst();
+		if (aTask == null) {
+			space.addIdleProxy(this);
+			aTask = tasks.pollFirst();
+			if (aTask == null) {
+				aTask = space.steal(this);
+
+				// The victim may have more tasks for another idle proxy
+				if (aTask != null) {
+					space.signalWork();
+				}
+			}
+			if (aTask != null) {
+				space.removeIdleProxy(this);
+			}
+		}
+		if (aTask != null) {
+			isAwaitingSplit = false;
+			return aTask;
+		}
+		if (batchesInFlight.get() >= numberOfWorkers) {
+			isAwaitingSplit = false;
+		} else if (!isAwaitingSplit
+				|| System.currentTimeMillis() - lastSplitRequest >= SPLIT_REQUEST_INTERVAL_MILLIS) {
+			isAwaitingSplit = space.requestSplit(this);
+			lastSplitRequest = System.currentTimeMillis();
+		}
+		return null;
+	}
+
+	/**
+	 * Pushes child tasks at the head of this proxy's deque so that the first
+	 * child is popped next and the last child is the first one to be stolen
+	 * 
+	 * @param subTasks
+	 *            Child tasks spawned by a task executed by this proxy
+	 */
+	private void push(List<? extends Task<?>> subTasks) {
+		ListIterator<? extends Task<?>> it = subTasks.listIterator(subTasks
+				.size());
+		while (it.hasPrevious()) {
+			tasks.addFirst(it.previous());
+		}
+		space.signalWork();
 	}
 
 	/**
 	 * 
 	 * @param aTask
-	 *            A task to be added to this proxy's queue
+	 *            A task to be added at the head of this proxy's deque
 	 */
-	public synchronized void addTask(Task<?> aTask) {
+	public void addTask(Task<?> aTask) {
+		this.tasks.addFirst(aTask);
+		signal();
+	}
+
+	/**
+	 * 
+	 * @return The oldest task at the tail of this proxy's deque, or null if
+	 *         the deque is empty
+	 */
+	public Task<?> steal() {
+		return this.tasks.pollLast();
+	}
+
+	/**
+	 * 
+	 * @return true if the remote computer is executing tasks of this proxy
+	 */
+	public boolean isBusy() {
+		return this.batchesInFlight.get() > 0;
+	}
+
+	/**
+	 * Asks the remote computer to split one of its running tasks. A failed
+	 * request is ignored here, since the proxy's own remote calls detect a
+	 * dead computer.
+	 */
+	public void requestSplit() {
 		try {
-			this.tasks.put(aTask);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			compObj.requestSplit();
+		} catch (RemoteException e) {
+			System.err.println("ComputerProxy : Unable to request split from "
+					+ this.id);
 		}
+	}
 
+	/**
+	 * 
+	 * @return Number of tasks waiting in this proxy's deque
+	 */
+	public int getQueueLength() {
+		return this.tasks.size();
 	}
 
 	/**
@@ -255,4 +801,38 @@ public class ComputerProxy implements Runnable {
 		return "" + first + second + third;
 	}
 
+	/*
+	 * Batch whose remote call has returned, with its results and the
+	 * wall-clock time of the call in nanoseconds
+	 */
+	private static class Completion {
+		private final List<Task<?>> batch;
+		private final List<Result<?>> results;
+		private final long elapsedTime;
+
+		private Completion(List<Task<?>> batch, List<Result<?>> results,
+				long elapsedTime) {
+			this.batch = batch;
+			this.results = results;
+			this.elapsedTime = elapsedTime;
+		}
+	}
+
+	/*
+	 * Latest shared object of a job offered to the computer, its version and
+	 * the version last sent
+	 */
+	private static class PendingShared {
+		private Shared<?> shared;
+		private long version;
+		private long sentVersion;
+
+		private PendingShared copy() {
+			PendingShared copy = new PendingShared();
+			copy.shared = shared;
+			copy.version = version;
+			copy.sentVersion = sentVersion;
+			return copy;
+		}
+	}
 }
@@ -0,0 +1,200 @@
+package system;
+
+/**
+ * A hash map from primitive long keys to objects which can be used by several
+ * threads at once. Keys are spread over a fixed number of independently locked
+ * segments, each of which is an open-addressing table with linear probing, so
+ * that neither keys nor entries are allocated on the heap.
+ *
+ * Null values are not supported, since an empty slot is marked by a null value.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ *
+ * @param <V>
+ *            Type of the values stored in the map
+ */
+public class ConcurrentLongMap<V> {
+
+	// Number of segments, must be a power of two
+	private static final int NUMBER_OF_SEGMENTS = 16;
+	private static final int SEGMENT_SHIFT = 28;
+
+	// Initial number of slots per segment, must be a power of two
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Segment<V>[] segments;
+
+	/**
+	 * Creates an empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongMap() {
+		this.segments = (Segment<V>[]) new Segment<?>[NUMBER_OF_SEGMENTS];
+		for (int i = 0; i < NUMBER_OF_SEGMENTS; i++) {
+			this.segments[i] = new Segment<V>();
+		}
+	}
+
+	/**
+	 *
+	 * @param key
+	 *            Key with which the value is to be associated
+	 * @param value
+	 *            Value to be associated with the key, must not be null
+	 * @return The value previously associated with the key, or null if there
+	 *         was none
+	 */
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("Null values are not supported");
+		}
+		int h = hash(key);
+		return segmentFor(h).put(key, h, value);
+	}
+
+	/**
+	 *
+	 * @param key
+	 *            Key whose value is required
+	 * @return The value associated with the key, or null if there is none
+	 */
+	public V get(long key) {
+		int h = hash(key);
+		return segmentFor(h).get(key, h);
+	}
+
+	/**
+	 *
+	 * @param key
+	 *            Key whose mapping is to be removed
+	 * @return The value that was associated with the key, or null if there was
+	 *         none
+	 */
+	public V remove(long key) {
+		int h = hash(key);
+		return segmentFor(h).remove(key, h);
+	}
+
+	/**
+	 *
+	 * @return Number of mappings in the map. The count is not atomic across
+	 *         segments if the map is being modified at the same time.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment<V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private Segment<V> segmentFor(int h) {
+		return segments[(h >>> SEGMENT_SHIFT) & (NUMBER_OF_SEGMENTS - 1)];
+	}
+
+	// Mixes all bits of the key, since task IDs differ mostly in their low bits
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * An open-addressing table with linear probing guarded by its own lock
+	 */
+	private static final class Segment<V> {
+		private long[] keys;
+		private Object[] values;
+		private int size;
+
+		Segment() {
+			this.keys = new long[INITIAL_CAPACITY];
+			this.values = new Object[INITIAL_CAPACITY];
+		}
+
+		synchronized int size() {
+			return this.size;
+		}
+
+		@SuppressWarnings("unchecked")
+		synchronized V get(long key, int h) {
+			int mask = keys.length - 1;
+			for (int i = h & mask; values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return (V) values[i];
+				}
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		synchronized V put(long key, int h, V value) {
+			int mask = keys.length - 1;
+			int i = h & mask;
+			for (; values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					V old = (V) values[i];
+					values[i] = value;
+					return old;
+				}
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+			// Keep the load factor at or below one half
+			if (2 * size > keys.length) {
+				resize();
+			}
+			return null;
+		}
+
+		/*
+		 * Removes the entry and shifts the entries that follow it in the same
+		 * probe sequence back, so that no tombstones are needed
+		 */
+		@SuppressWarnings("unchecked")
+		synchronized V remove(long key, int h) {
+			int mask = keys.length - 1;
+			int i = h & mask;
+			while (values[i] != null && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			if (values[i] == null) {
+				return null;
+			}
+			V old = (V) values[i];
+			values[i] = null;
+			size--;
+			for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+				int home = hash(keys[j]) & mask;
+				boolean reachable = (i <= j) ? (i < home && home <= j)
+						: (i < home || home <= j);
+				if (!reachable) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					values[j] = null;
+					i = j;
+				}
+			}
+			return old;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			Object[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new Object[oldValues.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldValues[j] != null) {
+					int i = hash(oldKeys[j]) & mask;
+					while (values[i] != null) {
+						i = (i + 1) & mask;
+					}
+					keys[i] = oldKeys[j];
+					values[i] = oldValues[j];
+				}
+			}
+		}
+	}
+}
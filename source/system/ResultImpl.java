@@ -17,6 +17,10 @@ public class ResultImpl<T> implements Result<T>, Serializable {
 	private static final long serialVersionUID = -7688137730920618986L;
 	private T result;
 	private List<Task<T>> subTasks;
+	private long taskRunTime;
+	private Shared<?> shared;
+	private double lowerBound;
+	private Throwable failure;
 
 	/**
 	 * Default constructor
@@ -25,6 +29,7 @@ public class ResultImpl<T> implements Result<T>, Serializable {
 	public ResultImpl() {
 		this.result = null;
 		this.subTasks = null;
+		this.lowerBound = Double.NEGATIVE_INFINITY;
 	}
 
 	/**
@@ -67,4 +72,84 @@ public class ResultImpl<T> implements Result<T>, Serializable {
 		this.subTasks = subTasks;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getTaskRunTime()
+	 */
+	@Override
+	public long getTaskRunTime() {
+		return this.taskRunTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setTaskRunTime(long)
+	 */
+	@Override
+	public void setTaskRunTime(long taskRunTime) {
+		this.taskRunTime = taskRunTime;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getShared()
+	 */
+	@Override
+	public Shared<?> getShared() {
+		return this.shared;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setShared(system.Shared)
+	 */
+	@Override
+	public void setShared(Shared<?> shared) {
+		this.shared = shared;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getLowerBound()
+	 */
+	@Override
+	public double getLowerBound() {
+		return this.lowerBound;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setLowerBound(double)
+	 */
+	@Override
+	public void setLowerBound(double lowerBound) {
+		this.lowerBound = lowerBound;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#getFailure()
+	 */
+	@Override
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see api.Result#setFailure(java.lang.Throwable)
+	 */
+	@Override
+	public void setFailure(Throwable failure) {
+		this.failure = failure;
+	}
+
 }
@@ -5,16 +5,23 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
-import java.util.Vector;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import api.Result;
+import api.SharedListener;
 import api.Client2Space;
 import api.Task;
 
@@ -33,6 +40,10 @@ import api.Task;
  * href="http://en.wikipedia.org/wiki/Cilk">Cilk</a> runtime. Please read the
  * architecture of Cilk to understand the class better.
  * 
+ * Several clients may compute jobs at the same time. Every task carries the
+ * ID of its job, by which the space finds the job's own shared object,
+ * successors and result, while the tasks of all jobs share the computers.
+ * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  * 
@@ -42,11 +53,21 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 
 	private Thread t;
 	private static final long serialVersionUID = 3093568798450948074L;
-	private Map<String, Successor> waitingTasks;
-	private LinkedBlockingQueue<Result<?>> results;
+	private ConcurrentHashMap<Long, Job> jobs;
+	private AtomicLong jobSequence;
+	private AtomicLong taskSequence;
+	private LinkedBlockingQueue<Successor> readySuccessors;
+	private ExecutorService successorPool;
+	private ExecutorService broadcastPool;
+	private ScheduledExecutorService broadcastTimer;
+	private ExecutorService callPool;
 	private List<ComputerProxy> proxies;
+	private Set<ComputerProxy> idleProxies;
 	private static final int PORT_NUMBER = 3672;
-	private Shared<?> shared;
+
+	// Number of threads executing READY successors, independent of DAG size
+	private static final int SUCCESSOR_POOL_SIZE = Runtime.getRuntime()
+			.availableProcessors();
 
 	/**
 	 * Default constructor
@@ -55,25 +76,127 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 */
 	public SpaceImpl() throws RemoteException {
 
-		this.waitingTasks = Collections
-				.synchronizedMap(new HashMap<String, Successor>());
-		this.results = new LinkedBlockingQueue<Result<?>>();
-		this.proxies = Collections
-				.synchronizedList(new Vector<ComputerProxy>());
+		this.jobs = new ConcurrentHashMap<Long, Job>();
+		this.jobSequence = new AtomicLong();
+		this.taskSequence = new AtomicLong();
+		this.readySuccessors = new LinkedBlockingQueue<Successor>();
+		this.successorPool = Executors
+				.newFixedThreadPool(SUCCESSOR_POOL_SIZE);
+		this.broadcastPool = Executors.newCachedThreadPool();
+		this.broadcastTimer = Executors.newSingleThreadScheduledExecutor();
+		this.callPool = Executors.newCachedThreadPool();
+		this.proxies = new CopyOnWriteArrayList<ComputerProxy>();
+		this.idleProxies = Collections
+				.newSetFromMap(new ConcurrentHashMap<ComputerProxy, Boolean>());
 		t = new Thread(this, "Space");
 		t.start();
 	}
 
+	/**
+	 * Adds a task that was not spawned by a proxy (the root task, a READY
+	 * successor or a task reassigned from a dead computer) to the deque of the
+	 * least loaded proxy. Child tasks are pushed by the proxy that spawned them
+	 * onto its own deque instead.
+	 * 
+	 * @param aTask
+	 *            Task to be executed
+	 * @return true if there was a proxy to accept the task
+	 */
 	public boolean put(Task<?> aTask) throws RemoteException {
-		if (proxies.size() > 0) {
-			int random = new Random().nextInt(this.proxies.size());
-			proxies.get(random).addTask(aTask);
-			return true;
+		ComputerProxy target = null;
+		for (ComputerProxy cp : proxies) {
+			if (target == null
+					|| cp.getQueueLength() < target.getQueueLength()) {
+				target = cp;
+			}
 		}
+		if (target != null) {
+			target.addTask(aTask);
 
+			// A proxy with all its batches in flight leaves the task to thieves
+			if (target.isBusy()) {
+				signalWork();
+			}
+			return true;
+		}
 		return false;
 	}
 
+	/**
+	 * Registers a proxy which has found no task to take or steal, so that it is
+	 * woken up by {@link #signalWork()}
+	 * 
+	 * @param idle
+	 *            Proxy which is about to sleep
+	 */
+	void addIdleProxy(ComputerProxy idle) {
+		idleProxies.add(idle);
+	}
+
+	/**
+	 * 
+	 * @param proxy
+	 *            Proxy which is no longer idle
+	 */
+	void removeIdleProxy(ComputerProxy proxy) {
+		idleProxies.remove(proxy);
+	}
+
+	/**
+	 * Called once tasks have been pushed onto a proxy's deque. One idle proxy,
+	 * if any, is woken up to steal. A proxy which has stolen a task calls this
+	 * method again, so that idle proxies keep being woken up while there are
+	 * tasks left to steal.
+	 */
+	void signalWork() {
+		for (ComputerProxy idle : idleProxies) {
+			if (idleProxies.remove(idle)) {
+				idle.signal();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Runs a remote call which ships a batch of tasks to a computer, so that
+	 * the proxy's dispatcher does not wait for it. Threads are only kept while
+	 * calls are in flight.
+	 * 
+	 * @param call
+	 *            Remote call to be run
+	 */
+	void executeCall(Runnable call) {
+		callPool.execute(call);
+	}
+
+	/**
+	 * Called by an idle proxy whose own deque is empty. Victims are visited in
+	 * order starting at a random proxy, and the oldest task at the tail of the
+	 * first non-empty deque is stolen.
+	 * 
+	 * @param thief
+	 *            Idle proxy trying to steal work
+	 * @return A stolen task, or null if every other deque is empty
+	 */
+	public Task<?> steal(ComputerProxy thief) {
+		Object[] victims = proxies.toArray();
+		if (victims.length == 0) {
+			return null;
+		}
+		int start = new Random().nextInt(victims.length);
+		for (int i = 0; i < victims.length; i++) {
+			ComputerProxy victim = (ComputerProxy) victims[(start + i)
+					% victims.length];
+			if (victim != thief) {
+				Task<?> stolen = victim.steal();
+				if (stolen != null) {
+					return stolen;
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * @see api.Client2Space#compute(Task, Shared) Client2Space.compute(Task,
 	 *      Shared)
@@ -82,12 +205,16 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	public Result<?> compute(Task<?> aTask, Shared<?> shared)
 			throws java.rmi.RemoteException {
 
-		this.shared = shared;
-		if (this.put(aTask)) {
+		Job job = startJob(aTask, shared, null, Long.MAX_VALUE, 0);
+		if (job != null) {
 			try {
-				return results.take();
+				job.done.await();
+				return job.result;
 			} catch (InterruptedException e) {
 				e.printStackTrace();
+			} finally {
+				jobs.remove(job.id);
+				finishJob(job, null);
 			}
 		}
 		System.err
@@ -96,13 +223,273 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	}
 
 	/**
-	 * Used to add to the queue of {@link api.Result Result} objects in this
-	 * compute space
+	 * @see api.Client2Space#submit(Task, Shared) Client2Space.submit(Task,
+	 *      Shared)
+	 */
+	@Override
+	public long submit(Task<?> aTask, Shared<?> shared) throws RemoteException {
+		return submit(aTask, shared, null);
+	}
+
+	/**
+	 * @see api.Client2Space#submit(Task, Shared, SharedListener)
+	 *      Client2Space.submit(Task, Shared, SharedListener)
+	 */
+	@Override
+	public long submit(Task<?> aTask, Shared<?> shared,
+			SharedListener listener) throws RemoteException {
+		return submit(aTask, shared, listener, Long.MAX_VALUE, 0);
+	}
+
+	/**
+	 * The lower bounds of the unfinished tasks of a job with a time limit or
+	 * a target gap are kept by the space, which is told of every task
+	 * decomposed by a proxy (see {@link #decomposed(Task, List)}). A task
+	 * which is running counts with the bound it was created with, which is
+	 * lower than, and so as valid as, the bound of the work it has left.
+	 * 
+	 * @see api.Client2Space#submit(Task, Shared, SharedListener, long,
+	 *      double) Client2Space.submit(Task, Shared, SharedListener, long,
+	 *      double)
+	 */
+	@Override
+	public long submit(Task<?> aTask, Shared<?> shared,
+			SharedListener listener, long timeLimitMillis, double targetGap)
+			throws RemoteException {
+		Job job = startJob(aTask, shared, listener, timeLimitMillis, targetGap);
+		if (job == null) {
+			throw new RemoteException(
+					"Unable to register tasks due to absence of computer proxies");
+		}
+		return job.id;
+	}
+
+	/**
+	 * @see api.Client2Space#poll(long) Client2Space.poll(long)
+	 */
+	@Override
+	public Result<?> poll(long jobId) throws RemoteException {
+		return await(jobId, 0);
+	}
+
+	/**
+	 * @see api.Client2Space#await(long, long) Client2Space.await(long, long)
+	 */
+	@Override
+	public Result<?> await(long jobId, long timeoutMillis)
+			throws RemoteException {
+		Job job = jobs.get(jobId);
+		if (job == null) {
+			throw new IllegalArgumentException("Unknown job : " + jobId);
+		}
+		try {
+			if (!job.done.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				return null;
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return null;
+		}
+		jobs.remove(jobId);
+		return job.result;
+	}
+
+	/**
+	 * The tasks of the job which are waiting in the proxies' deques are
+	 * dropped when they are reached, and computers prune the remaining work of
+	 * running tasks once they have forgotten the job.
 	 * 
+	 * @see api.Client2Space#cancel(long) Client2Space.cancel(long)
+	 */
+	@Override
+	public boolean cancel(long jobId) throws RemoteException {
+		Job job = jobs.remove(jobId);
+		return job != null && finishJob(job, null);
+	}
+
+	/*
+	 * Registers a new job and adds its root task to the space
+	 * 
+	 * @return The new job, or null if there is no proxy to accept the task
+	 */
+	private Job startJob(Task<?> aTask, Shared<?> shared,
+			SharedListener listener, long timeLimitMillis, double targetGap)
+			throws RemoteException {
+		final Job job = new Job(jobSequence.incrementAndGet(), shared,
+				listener, timeLimitMillis, targetGap);
+		aTask.setJobId(job.id);
+		if (job.isLimited()) {
+			job.addOpenBound(aTask.getLowerBound());
+		}
+		jobs.put(job.id, job);
+
+		/*
+		 * Seed every computer with the shared object of the job, which may
+		 * already hold an upper bound found by the client
+		 */
+		if (shared != null) {
+			fanOut(job.id, shared, job.sharedVersion, null);
+		}
+		if (!this.put(aTask)) {
+			jobs.remove(job.id);
+			finishJob(job, null);
+			return null;
+		}
+		if (timeLimitMillis != Long.MAX_VALUE) {
+			job.deadline = broadcastTimer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					stopJob(job);
+				}
+			}, timeLimitMillis, TimeUnit.MILLISECONDS);
+		}
+		return job;
+	}
+
+	/*
+	 * Finishes a job before all of its tasks have been executed. Its result
+	 * carries the best shared object found and the lower bound proven so far.
+	 */
+	private void stopJob(Job job) {
+		ResultImpl<Object> result = new ResultImpl<Object>();
+		synchronized (job) {
+			result.setShared(job.shared);
+			result.setLowerBound(job.getLowerBound());
+		}
+		finishJob(job, result);
+	}
+
+	/*
+	 * Stops a job with a target gap once the gap between its shared object and
+	 * the lowest bound of its unfinished tasks has closed to the target. A job
+	 * without unfinished tasks is about to return its own result.
+	 */
+	private void checkGap(Job job) {
+		synchronized (job) {
+			if (job.targetGap <= 0 || job.openBounds.isEmpty()) {
+				return;
+			}
+			double upperBound = job.getUpperBound();
+			if (Double.isInfinite(upperBound)
+					|| upperBound - job.getLowerBound() > job.targetGap
+							* Math.abs(upperBound)) {
+				return;
+			}
+		}
+		stopJob(job);
+	}
+
+	/**
+	 * Called by a proxy once a task has been decomposed, before its subtasks
+	 * are pushed. The lower bound of the task is replaced by those of its
+	 * subtasks among the unfinished tasks of a job with a time limit or a
+	 * target gap, which may then be stopped.
+	 * 
+	 * @param aTask
+	 *            Task which has been decomposed
+	 * @param subTasks
+	 *            Subtasks generated by the task, or null if it had none
+	 */
+	void decomposed(Task<?> aTask, List<? extends Task<?>> subTasks) {
+		Job job = jobs.get(aTask.getJobId());
+		if (job == null || !job.isLimited()) {
+			return;
+		}
+		double[] subTaskBounds = new double[subTasks == null ? 0 : subTasks
+				.size()];
+		for (int i = 0; i < subTaskBounds.length; i++) {
+			subTaskBounds[i] = subTasks.get(i).getLowerBound();
+		}
+		synchronized (job) {
+			for (double subTaskBound : subTaskBounds) {
+				job.addOpenBound(subTaskBound);
+			}
+			job.removeOpenBound(aTask.getLowerBound());
+		}
+		checkGap(job);
+	}
+
+	/**
+	 * Called by a proxy once a task has thrown an exception on a computer.
+	 * The job of the task is finished with a result which carries the
+	 * exception, and its other tasks are dropped. Other jobs and the computer
+	 * are not affected.
+	 * 
+	 * @param aTask
+	 *            Task which has failed
+	 * @param failure
+	 *            Exception thrown by the task
+	 */
+	void failJob(Task<?> aTask, Throwable failure) {
+		Job job = jobs.get(aTask.getJobId());
+		if (job == null) {
+			return;
+		}
+		System.err.println("Task " + aTask.getId() + " of job " + job.id
+				+ " failed : " + failure);
+		ResultImpl<Object> result = new ResultImpl<Object>();
+		result.setFailure(failure);
+		finishJob(job, result);
+	}
+
+	/*
+	 * Sets the result of a job, if it has not finished yet, and has every
+	 * computer forget the job. The job itself is forgotten once its result has
+	 * been returned to the client.
+	 * 
+	 * @return true if the job had not finished yet
+	 */
+	private boolean finishJob(Job job, Result<?> result) {
+		synchronized (job) {
+			if (job.done.getCount() == 0) {
+				return false;
+			}
+			job.result = result;
+			job.done.countDown();
+			job.openBounds.clear();
+		}
+		if (job.deadline != null) {
+			job.deadline.cancel(false);
+		}
+		for (ComputerProxy cp : proxies) {
+			cp.removeJob(job.id);
+		}
+		return true;
+	}
+
+	/**
+	 * 
+	 * @param jobId
+	 *            ID of a job
+	 * @return true if the job has been submitted and has neither finished nor
+	 *         been cancelled
+	 */
+	boolean isRunning(long jobId) {
+		Job job = jobs.get(jobId);
+		return job != null && job.done.getCount() > 0;
+	}
+
+	/**
+	 * Sets the result of a job in this compute space, and wakes up the client
+	 * waiting for it. Results of a cancelled job are dropped. The result of a
+	 * job with a time limit or a target gap carries its best shared object,
+	 * which its search has proven to be optimal.
+	 * 
+	 * @param jobId
+	 *            ID of the job
 	 * @throws RemoteException
 	 */
-	public void putResult(Result<?> result) throws RemoteException {
-		results.add(result);
+	public void putResult(long jobId, Result<?> result) throws RemoteException {
+		Job job = jobs.get(jobId);
+		if (job != null) {
+			if (job.isLimited()) {
+				synchronized (job) {
+					result.setShared(job.shared);
+					result.setLowerBound(job.getUpperBound());
+				}
+			}
+			finishJob(job, result);
+		}
 	}
 
 	/**
@@ -111,9 +498,20 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	 * @throws RemoteException
 	 */
 	@Override
-	public synchronized void register(Computer computer) throws RemoteException {
-		ComputerProxy aProxy = new ComputerProxy(computer, this);
+	public synchronized void register(Computer computer, int numberOfWorkers)
+			throws RemoteException {
+		ComputerProxy aProxy = new ComputerProxy(computer, this,
+				numberOfWorkers);
 		this.proxies.add(aProxy);
+
+		// A computer which joins during jobs starts with their latest bounds
+		for (Job job : jobs.values()) {
+			synchronized (job) {
+				if (job.shared != null) {
+					aProxy.offerShared(job.id, job.shared, job.sharedVersion);
+				}
+			}
+		}
 	}
 
 	public synchronized void addProxy(ComputerProxy aProxy) {
@@ -122,6 +520,7 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 
 	public synchronized void removeProxy(ComputerProxy aProxy) {
 		this.proxies.remove(aProxy);
+		this.idleProxies.remove(aProxy);
 	}
 
 	/**
@@ -149,92 +548,323 @@ public class SpaceImpl extends UnicastRemoteObject implements Client2Space,
 	}
 
 	/**
-	 * Polls for {@link system.Successor Successor} threads to be execute once
-	 * they move into READY status
+	 * Blocks on the queue of READY {@link system.Successor Successor} threads
+	 * and hands each one to the bounded successor pool as soon as it is handed
+	 * over by its {@link system.Successor.Closure Closure}
 	 */
 	@Override
 	public void run() {
 		while (true) {
-			synchronized (this) {
-				Set<Entry<String, Successor>> successorSet = waitingTasks
-						.entrySet();
-				for (Entry<String, Successor> e : successorSet) {
-					Successor s = e.getValue();
-					if (s.getStatus() == Successor.Status.READY) {
-						s.start();
-					}
-				}
+			try {
+				Successor s = readySuccessors.take();
+				successorPool.execute(s);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
 			}
 		}
 	}
 
+	/**
+	 * Assigns an ID to a subtask as it is spawned. The ID holds the level of
+	 * the subtask in the recursion tree and a sequence number unique across
+	 * the compute space.
+	 * 
+	 * @param parentId
+	 *            ID of the task which spawned the subtask
+	 * @return ID of the subtask
+	 * @see api.Task#ID_LEVEL_SHIFT
+	 */
+	public long nextTaskId(long parentId) {
+		long level = Math.min((parentId >>> Task.ID_LEVEL_SHIFT) + 1,
+				(1L << (Long.SIZE - Task.ID_LEVEL_SHIFT)) - 1);
+		return (level << Task.ID_LEVEL_SHIFT)
+				| taskSequence.incrementAndGet();
+	}
+
+	/**
+	 * Called by a proxy which could not steal any task while its computer has
+	 * idle workers. A busy proxy, chosen starting at a random proxy, is asked
+	 * to have one of its running tasks split into subtasks. The asking proxy
+	 * itself may be chosen if it has batches in flight, so that the idle
+	 * workers of a computer can take over the work of its running task.
+	 * Otherwise the asking proxy steals the subtasks.
+	 * 
+	 * @param thief
+	 *            Proxy asking for work
+	 * @return true if a busy proxy has been asked, false if no proxy is busy
+	 */
+	public boolean requestSplit(ComputerProxy thief) {
+		Object[] victims = proxies.toArray();
+		if (victims.length == 0) {
+			return false;
+		}
+		int start = new Random().nextInt(victims.length);
+		for (int i = 0; i < victims.length; i++) {
+			ComputerProxy victim = (ComputerProxy) victims[(start + i)
+					% victims.length];
+			if (victim.isBusy()) {
+				victim.requestSplit();
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * 
 	 * @param s
-	 *            Successor thread to be added to the queue
+	 *            Successor thread to be added to the queue of its job
 	 */
 	public void addSuccessor(Successor s) {
-		synchronized (this) {
-			waitingTasks.put(s.getId(), s);
+		Job job = jobs.get(s.getJobId());
+		if (job != null) {
+			job.waitingTasks.put(s.getId(), s);
 		}
+	}
 
+	/**
+	 * Called by the {@link system.Successor.Closure Closure} of a successor
+	 * thread once its join counter reaches zero
+	 * 
+	 * @param s
+	 *            Successor thread which has moved into READY status
+	 */
+	public void putReadySuccessor(Successor s) {
+		readySuccessors.add(s);
 	}
 
 	/**
 	 * 
+	 * @param jobId
+	 *            ID of the job of the successor thread
 	 * @param successorId
 	 *            Successor thread to be removed from the queue
 	 */
-	public void removeSuccessor(String successorId) {
-		synchronized (this) {
-			waitingTasks.remove(successorId);
+	public void removeSuccessor(long jobId, long successorId) {
+		Job job = jobs.get(jobId);
+		if (job != null) {
+			job.waitingTasks.remove(successorId);
 		}
-
 	}
 
 	/**
 	 * 
+	 * @param jobId
+	 *            ID of the job of the successor thread
 	 * @param id
 	 *            ID of the successor thread whose Closure object is required
-	 * @return Gets the closure object corresponding to the Successor thread.
+	 * @return Gets the closure object corresponding to the Successor thread,
+	 *         or null if its job has been cancelled
 	 */
-	public Successor.Closure getClosure(String id) {
-		synchronized (this) {
-			return waitingTasks.get(id).getClosure();
+	public Successor.Closure getClosure(long jobId, long id) {
+		Job job = jobs.get(jobId);
+		if (job == null) {
+			return null;
 		}
-
+		Successor s = job.waitingTasks.get(id);
+		return (s == null) ? null : s.getClosure();
 	}
 
 	/**
-	 * This method is synchronized because no two computers can broadcast at the
-	 * same time.
+	 * Only the comparison with the current shared object of the job, and the
+	 * assignment of a new version, are made under the job's lock. The new
+	 * shared object is then offered to the proxies of all other computers,
+	 * which send it concurrently (see
+	 * {@link ComputerProxy#offerShared(long, Shared, long)}), so that a slow
+	 * computer delays neither the others nor the space. Broadcasts of a job
+	 * which has finished are ignored.
 	 * 
 	 * @see system.Computer2Space#broadcast(Broadcast)
 	 *      system.Computer2Space.broadcast(Broadcast)
 	 */
 	@Override
-	public synchronized void broadcast(Broadcast broadcast)
-			throws RemoteException {
+	public void broadcast(Broadcast broadcast) throws RemoteException {
+		Job job = jobs.get(broadcast.getJobId());
+		if (job == null) {
+			return;
+		}
 		Shared<?> newShared = broadcast.getShared();
-		String computerId = broadcast.getComputerId();
-		if (!shared.isNewerThan(newShared)) {
-			this.setShared(newShared);
-			for (ComputerProxy cp : proxies) {
-				if (!cp.getId().equals(computerId)) {
-					cp.setShared(newShared);
+		long version;
+		synchronized (job) {
+			if (job.shared != null && job.shared.isNewerThan(newShared)) {
+				return;
+			}
+			job.shared = newShared;
+			version = ++job.sharedVersion;
+		}
+		fanOut(job.id, newShared, version, broadcast.getComputerId());
+		notifyListener(job);
+		checkGap(job);
+	}
+
+	/*
+	 * Tells the client of a job about its latest shared object, without
+	 * waiting for the remote call. At most one call per job is in progress at
+	 * any time, and it always delivers the latest shared object, so that the
+	 * client never gets an older object after a newer one.
+	 */
+	private void notifyListener(final Job job) {
+		synchronized (job) {
+			if (job.listener == null || job.sharedVersion <= job.notifiedVersion
+					|| job.isNotifying) {
+				return;
+			}
+			job.isNotifying = true;
+		}
+		broadcastPool.execute(new Runnable() {
+			@Override
+			public void run() {
+				while (true) {
+					Shared<?> latest;
+					long version;
+					synchronized (job) {
+						if (job.sharedVersion <= job.notifiedVersion) {
+							job.isNotifying = false;
+							return;
+						}
+						latest = job.shared;
+						version = job.sharedVersion;
+					}
+					try {
+						job.listener.sharedChanged(job.id, latest);
+					} catch (RemoteException e) {
+						e.printStackTrace();
+						synchronized (job) {
+							job.listener = null;
+							job.isNotifying = false;
+						}
+						return;
+					}
+					synchronized (job) {
+						job.notifiedVersion = version;
+					}
 				}
 			}
+		});
+	}
+
+	/*
+	 * Offers a new version of the shared object of a job to the proxy of
+	 * every computer, except the one which proposed it
+	 */
+	private void fanOut(long jobId, Shared<?> newShared, long version,
+			String computerId) {
+		for (ComputerProxy cp : proxies) {
+			if (!cp.getId().equals(computerId)) {
+				cp.offerShared(jobId, newShared, version);
+			}
 		}
 	}
 
 	/**
-	 * @param newShared
+	 * Runs a remote call which sends a shared object to a computer after a
+	 * delay. The timer thread only hands the call over to the pool of
+	 * broadcast threads, so that calls to slow computers do not hold up the
+	 * others.
+	 * 
+	 * @param send
+	 *            Remote call to be run
+	 * @param delayMillis
+	 *            Delay in milliseconds
 	 */
-	public synchronized void setShared(Shared<?> newShared) {
-		this.shared = newShared;
+	void sendLater(final Runnable send, long delayMillis) {
+		broadcastTimer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				broadcastPool.execute(send);
+			}
+		}, delayMillis, TimeUnit.MILLISECONDS);
 	}
 
-	public synchronized Shared<?> getShared() {
-		return this.shared;
+	/*
+	 * State of a job from its submission until its result is returned. The
+	 * shared object, its version, the state of the listener and the lower
+	 * bounds of the unfinished tasks are guarded by the job's lock. The result
+	 * is set once, before the latch is released.
+	 */
+	private static class Job {
+		private final long id;
+		private Shared<?> shared;
+		private long sharedVersion;
+		private final CountDownLatch done;
+		private volatile Result<?> result;
+		private final ConcurrentLongMap<Successor> waitingTasks;
+
+		/*
+		 * Client to be told of better shared objects, the version it was last
+		 * told of and whether a call to it is in progress
+		 */
+		private SharedListener listener;
+		private long notifiedVersion;
+		private boolean isNotifying;
+
+		/*
+		 * Limits of the job, the timer task which stops it at its time limit,
+		 * and the number of unfinished tasks with each lower bound
+		 */
+		private final long timeLimitMillis;
+		private final double targetGap;
+		private volatile ScheduledFuture<?> deadline;
+		private final TreeMap<Double, Integer> openBounds;
+
+		private Job(long id, Shared<?> shared, SharedListener listener,
+				long timeLimitMillis, double targetGap) {
+			this.id = id;
+			this.shared = shared;
+			this.sharedVersion = 1;
+			this.timeLimitMillis = timeLimitMillis;
+			this.targetGap = targetGap;
+			this.openBounds = new TreeMap<Double, Integer>();
+
+			// The client knows the shared object it has submitted
+			this.listener = listener;
+			this.notifiedVersion = 1;
+			this.done = new CountDownLatch(1);
+			this.waitingTasks = new ConcurrentLongMap<Successor>();
+		}
+
+		private boolean isLimited() {
+			return timeLimitMillis != Long.MAX_VALUE || targetGap > 0;
+		}
+
+		private void addOpenBound(double lowerBound) {
+			Integer count = openBounds.get(lowerBound);
+			openBounds.put(lowerBound, count == null ? 1 : count + 1);
+		}
+
+		private void removeOpenBound(double lowerBound) {
+			Integer count = openBounds.get(lowerBound);
+			if (count == null) {
+				return;
+			}
+			if (count == 1) {
+				openBounds.remove(lowerBound);
+			} else {
+				openBounds.put(lowerBound, count - 1);
+			}
+		}
+
+		/*
+		 * Value of the shared object, which is the best solution found by
+		 * branch-and-bound
+		 */
+		private double getUpperBound() {
+			if (shared != null && shared.get() instanceof Number) {
+				return ((Number) shared.get()).doubleValue();
+			}
+			return Double.POSITIVE_INFINITY;
+		}
+
+		/*
+		 * Lowest bound over the unfinished tasks, which no solution, and so
+		 * neither the best one found, can beat
+		 */
+		private double getLowerBound() {
+			double upperBound = getUpperBound();
+			if (openBounds.isEmpty()) {
+				return upperBound;
+			}
+			return Math.min(openBounds.firstKey(), upperBound);
+		}
 	}
 }
@@ -22,9 +22,8 @@ import api.Task;
  */
 public class Successor implements Runnable {
 
-	private Thread t;
 	private Status threadStatus;
-	private String id;
+	private long id;
 	private SpaceImpl space;
 	private Task<?> task;
 	private Closure aClosure;
@@ -63,23 +62,16 @@ public class Successor implements Runnable {
 		this.space = spaceImpl;
 		this.task = aTask;
 		this.id = task.getId();
-		t = new Thread(this, aTask.getId());
-
-	}
-
-	/**
-	 * Starts the thread
-	 */
-	public void start() {
-		this.setStatus(Status.EXECUTING);
-		t.start();
 	}
 
 	/**
-	 * Adds the task to the space
+	 * Adds the task to the space. Successors are lightweight continuations
+	 * executed by the space's bounded pool, so no thread is owned by a
+	 * successor.
 	 */
 	@Override
 	public void run() {
+		this.setStatus(Status.EXECUTING);
 		try {
 			space.put(task);
 		} catch (RemoteException e) {
@@ -110,10 +102,18 @@ public class Successor implements Runnable {
 	 * 
 	 * @return ID of the successor
 	 */
-	public String getId() {
+	public long getId() {
 		return this.id;
 	}
 
+	/**
+	 * 
+	 * @return ID of the job the successor's task belongs to
+	 */
+	public long getJobId() {
+		return task.getJobId();
+	}
+
 	/**
 	 * 
 	 * Closure used to store the missing arguments in <a
@@ -140,11 +140,12 @@ public class Successor implements Runnable {
 		}
 
 		/**
-		 * Adds an argument to the Closure's list of values
+		 * Adds an argument to the Closure's list of values. The last missing
+		 * argument hands the successor over to the space's ready queue.
 		 * 
 		 * @param value
 		 */
-		public void put(Object value) {
+		public synchronized void put(Object value) {
 			if (value != null) {
 				values.add(value);
 			}
@@ -152,6 +153,7 @@ public class Successor implements Runnable {
 			if (this.joinCounter == 0) {
 				task.putValues(values);
 				setStatus(Status.READY);
+				space.putReadySuccessor(Successor.this);
 			}
 		}
 
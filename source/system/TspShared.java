@@ -9,7 +9,8 @@ import java.io.Serializable;
  * A class abstracting shared objects for the branch-and-bound TSP problem. The
  * class encapsulates an upper-bound value of type Double generated during
  * branch-and-bound. The upper-bound is nothing but the length of a feasible
- * tour of cities.
+ * tour of cities, which may travel along with it, so that the client of a job
+ * can be told of every better tour as soon as it is found.
  * 
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
@@ -19,13 +20,37 @@ public class TspShared implements Shared<Double>, Serializable {
 
 	private static final long serialVersionUID = 165386141205567783L;
 	private double upperBound;
-	public static final Double INFINITY = -1.0d;
+	private int[] tour;
+
+	// Upper-bound of a job for which no tour has been found yet
+	public static final double INFINITY = Double.POSITIVE_INFINITY;
 
 	public TspShared(double distance) {
 		this.upperBound = distance;
 
 	}
 
+	/**
+	 * @param distance
+	 *            Length of the tour
+	 * @param tour
+	 *            Labels of the cities in the order in which the tour visits
+	 *            them. The array is not copied, and must not be changed.
+	 */
+	public TspShared(double distance, int[] tour) {
+		this(distance);
+		this.tour = tour;
+	}
+
+	/**
+	 * 
+	 * @return The tour whose length is the upper-bound, or null if the
+	 *         upper-bound was not given along with a tour
+	 */
+	public int[] getTour() {
+		return this.tour;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -35,10 +60,7 @@ public class TspShared implements Shared<Double>, Serializable {
 	public boolean isNewerThan(Shared<?> newShared) {
 		if (newShared instanceof TspShared) {
 			TspShared newTspShared = (TspShared) newShared;
-			double newUpperBound = newTspShared.get();
-			double existingUpperBound = this.get();
-			if (newUpperBound != INFINITY
-					&& (existingUpperBound == INFINITY || existingUpperBound > newUpperBound)) {
+			if (newTspShared.upperBound < this.upperBound) {
 				return false;
 			}
 		}
@@ -0,0 +1,89 @@
+package tasks;
+
+/**
+ * Tightens the {@link tasks.OneTreeBound 1-tree bound} with the subgradient
+ * optimization of Held and Karp. Every unvisited city has degree two in the
+ * rest of any tour, so a penalty added to the costs of the edges of a city
+ * changes the length of every tour by the same amount, and the penalized
+ * 1-tree remains a lower bound. Penalties are raised on cities of degree
+ * above two in the 1-tree and lowered on leaves, which pushes the 1-tree
+ * towards a tour and its weight towards the length of the shortest one.
+ * 
+ * The bound is the best one seen during a fixed number of steps, and the
+ * search stops early once it exceeds the upper bound or the 1-tree is a tour.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class HeldKarpBound extends OneTreeBound {
+
+	private static final long serialVersionUID = -3185262325519734418L;
+
+	// Maximum number of subgradient steps for each bound
+	private static final int ITERATIONS = 30;
+
+	// Step size multiplier, halved after PATIENCE steps without improvement
+	private static final double INITIAL_STEP = 2.0d;
+	private static final int PATIENCE = 5;
+
+	// Assumed gap between the bound and the shortest tour, if none is known
+	private static final double ASSUMED_GAP = 0.05d;
+
+	@Override
+	public double computeLowerBound(TspGraph graph, int firstCity,
+			int lastCity, double length, long visited, double upperBound) {
+		long remaining = graph.unvisited(visited);
+
+		// The 1-tree of at most one unvisited city is the rest of the tour
+		if (Long.bitCount(remaining) < 2) {
+			return super.computeLowerBound(graph, firstCity, lastCity, length,
+					visited, upperBound);
+		}
+
+		Scratch s = scratch(graph.size());
+		double[] penalties = s.penalties;
+		int[] degrees = s.degrees;
+		double bestBound = Double.NEGATIVE_INFINITY;
+		double step = INITIAL_STEP;
+		int stepsWithoutImprovement = 0;
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+			for (long cs = remaining | (1L << lastCity); cs != 0; cs &= cs - 1) {
+				degrees[Long.numberOfTrailingZeros(cs)] = 0;
+			}
+			double bound = length
+					+ oneTree(graph, firstCity, lastCity, remaining, s);
+			if (bound > bestBound) {
+				bestBound = bound;
+				stepsWithoutImprovement = 0;
+			} else if (++stepsWithoutImprovement == PATIENCE) {
+				step /= 2;
+				stepsWithoutImprovement = 0;
+			}
+
+			double target = Double.isInfinite(upperBound) ? bound
+					* (1 + ASSUMED_GAP) : upperBound;
+			if (bestBound > upperBound || bound >= target) {
+				break;
+			}
+
+			// Squared norm of the subgradient
+			int norm = 0;
+			for (long cs = remaining; cs != 0; cs &= cs - 1) {
+				int g = degrees[Long.numberOfTrailingZeros(cs)] - 2;
+				norm += g * g;
+			}
+			// The 1-tree is a tour, so no tour can be shorter
+			if (norm == 0) {
+				break;
+			}
+
+			double t = step * (target - bound) / norm;
+			for (long cs = remaining; cs != 0; cs &= cs - 1) {
+				int c = Long.numberOfTrailingZeros(cs);
+				penalties[c] += t * (degrees[c] - 2);
+			}
+		}
+		return bestBound;
+	}
+}
@@ -0,0 +1,45 @@
+package tasks;
+
+/**
+ * Bounds a partial route by its length plus, for every city that still has to
+ * be left, the cheapest edge leaving it towards another such city or back to
+ * the first city of the route. This is the cheapest bound to compute, but also
+ * the weakest one.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class MinEdgeBound implements TspBound {
+
+	private static final long serialVersionUID = -2870343745407567455L;
+
+	@Override
+	public double computeLowerBound(TspGraph graph, int firstCity,
+			int lastCity, double length, long visited, double upperBound) {
+
+		long options = graph.unvisited(visited) | (1L << lastCity);
+
+		// Start with the length of current partial tour
+		double minEdgeCostSum = length;
+
+		/*
+		 * Tighten the lower bound by adding only those edges that have a
+		 * minimum cost among the set of remaining edges in the graph
+		 */
+		for (long cs = options; cs != 0; cs &= cs - 1) {
+			int c = Long.numberOfTrailingZeros(cs);
+			double minEdgeCost = graph.distance(c, firstCity);
+			for (long others = options & ~(1L << c); others != 0; others &= others - 1) {
+				double thisLength = graph.distance(c, Long
+						.numberOfTrailingZeros(others));
+				if (thisLength < minEdgeCost) {
+					minEdgeCost = thisLength;
+				}
+			}
+
+			// Add min edge cost
+			minEdgeCostSum += minEdgeCost;
+		}
+		return minEdgeCostSum;
+	}
+}
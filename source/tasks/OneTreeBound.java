@@ -0,0 +1,168 @@
+package tasks;
+
+/**
+ * Bounds a partial route by its length plus the weight of a minimum 1-tree
+ * over the rest of the tour.
+ * 
+ * The rest of any tour which extends the route is a path from the last city of
+ * the route, through every unvisited city, back to the first city. Without its
+ * final edge, such a path is a spanning tree of the unvisited cities and the
+ * last city, and its final edge joins the first city to one of the unvisited
+ * cities. The minimum spanning tree of those cities plus the cheapest such
+ * edge therefore weighs no more than the rest of the tour.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class OneTreeBound implements TspBound {
+
+	private static final long serialVersionUID = 6015311787936633306L;
+
+	// Working arrays of each thread, reused by every bound it computes
+	private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	/**
+	 * Working arrays for computing the 1-tree of a graph, indexed either by
+	 * city label or by position in the tree
+	 */
+	protected static final class Scratch {
+		private int[] nodes = new int[0];
+		private double[] key;
+		private int[] parent;
+		private boolean[] inTree;
+		protected double[] penalties;
+		protected int[] degrees;
+
+		private void ensureCapacity(int n) {
+			if (nodes.length < n) {
+				nodes = new int[n];
+				key = new double[n];
+				parent = new int[n];
+				inTree = new boolean[n];
+				penalties = new double[n];
+				degrees = new int[n];
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return The working arrays of the calling thread, with room for at
+	 *         least n cities and all penalties and degrees set to zero
+	 */
+	protected static Scratch scratch(int n) {
+		Scratch s = scratch.get();
+		s.ensureCapacity(n);
+		for (int i = 0; i < n; i++) {
+			s.penalties[i] = 0.0d;
+			s.degrees[i] = 0;
+		}
+		return s;
+	}
+
+	@Override
+	public double computeLowerBound(TspGraph graph, int firstCity,
+			int lastCity, double length, long visited, double upperBound) {
+		long remaining = graph.unvisited(visited);
+		if (remaining == 0) {
+			return length + graph.distance(lastCity, firstCity);
+		}
+		return length
+				+ oneTree(graph, firstCity, lastCity, remaining, scratch(graph
+						.size()));
+	}
+
+	/**
+	 * Builds the minimum 1-tree of the rest of the tour with Prim's algorithm,
+	 * where the cost of the edge between cities i and j is d(i, j) +
+	 * penalties[i] + penalties[j]. The penalties of the first and the last city
+	 * are expected to be zero.
+	 * 
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 * @param firstCity
+	 *            First city of the route
+	 * @param lastCity
+	 *            Last city of the route
+	 * @param remaining
+	 *            Bitmask of the unvisited cities, which must not be empty
+	 * @param s
+	 *            Working arrays holding the penalty of each city. The degree
+	 *            of each city in the 1-tree is added to its zeroed degrees.
+	 * @return Weight of the 1-tree with respect to the penalized costs, less
+	 *         twice the penalties of the unvisited cities. This is a lower
+	 *         bound on the length of the rest of the tour for any penalties.
+	 */
+	protected double oneTree(TspGraph graph, int firstCity, int lastCity,
+			long remaining, Scratch s) {
+		int k = Long.bitCount(remaining) + 1;
+		int[] nodes = s.nodes;
+		double[] key = s.key;
+		int[] parent = s.parent;
+		boolean[] inTree = s.inTree;
+		double[] penalties = s.penalties;
+		int[] degrees = s.degrees;
+
+		// The last city is the root of the spanning tree
+		nodes[0] = lastCity;
+		key[0] = 0.0d;
+		inTree[0] = false;
+		int i = 1;
+		for (long cs = remaining; cs != 0; cs &= cs - 1) {
+			nodes[i] = Long.numberOfTrailingZeros(cs);
+			key[i] = Double.POSITIVE_INFINITY;
+			inTree[i] = false;
+			i++;
+		}
+
+		double weight = 0.0d;
+		for (int step = 0; step < k; step++) {
+			int u = -1;
+			for (i = 0; i < k; i++) {
+				if (!inTree[i] && (u < 0 || key[i] < key[u])) {
+					u = i;
+				}
+			}
+			inTree[u] = true;
+			weight += key[u];
+			if (u != 0) {
+				degrees[nodes[u]]++;
+				degrees[nodes[parent[u]]]++;
+			}
+			for (i = 0; i < k; i++) {
+				if (!inTree[i]) {
+					double cost = graph.distance(nodes[u], nodes[i])
+							+ penalties[nodes[u]] + penalties[nodes[i]];
+					if (cost < key[i]) {
+						key[i] = cost;
+						parent[i] = u;
+					}
+				}
+			}
+		}
+
+		// Join the first city to its cheapest unvisited neighbour
+		int closest = 1;
+		double closestCost = Double.POSITIVE_INFINITY;
+		for (i = 1; i < k; i++) {
+			double cost = graph.distance(firstCity, nodes[i])
+					+ penalties[nodes[i]];
+			if (cost < closestCost) {
+				closestCost = cost;
+				closest = i;
+			}
+		}
+		weight += closestCost;
+		degrees[nodes[closest]]++;
+
+		for (i = 1; i < k; i++) {
+			weight -= 2 * penalties[nodes[i]];
+		}
+		return weight;
+	}
+}
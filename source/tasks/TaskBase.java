@@ -2,8 +2,6 @@ package tasks;
 
 import java.io.Serializable;
 import java.rmi.RemoteException;
-import java.util.List;
-import java.util.Vector;
 
 import system.Computer;
 import system.Shared;
@@ -20,18 +18,16 @@ public abstract  class TaskBase<T> implements Task<T>, Serializable {
 	private static final long serialVersionUID = -139155829609653917L;
 
 	private Status status;
-	private String parentId;
-	private String taskId;
+	private long parentId;
+	private long taskId;
+	private long jobId;
 	private long startTime;
-	protected Computer computer;
+	// The computer is local to the JVM executing the task, so it is never shipped
+	protected transient Computer computer;
 
-	protected static final String ID_DELIM = "-";
-	protected static final int DEFAULT_TASK_LEVEL = 0;
-	protected static final int DEFAULT_CHILD_LEVEL = 0;
-	protected static final String DEFAULT_TASK_ID = DEFAULT_TASK_LEVEL
-			+ ID_DELIM + DEFAULT_CHILD_LEVEL;
+	protected static final long DEFAULT_TASK_ID = 0L;
 
-	public TaskBase(String taskId, String parentId, Status status,
+	public TaskBase(long taskId, long parentId, Status status,
 			long startTime) {
 		setId(taskId);
 		setParentId(parentId);
@@ -50,38 +46,41 @@ public abstract  class TaskBase<T> implements Task<T>, Serializable {
 	}
 
 	@Override
-	public String getParentId() {
+	public long getParentId() {
 		return this.parentId;
 	}
 
 	@Override
-	public void setParentId(String id) {
+	public void setParentId(long id) {
 		this.parentId = id;
 	}
 
 	@Override
-	public String getId() {
+	public long getId() {
 		return this.taskId;
 	}
 
 	@Override
-	public void setId(String taskId) {
+	public void setId(long taskId) {
 		this.taskId = taskId;
 	}
 
 	@Override
-	public List<String> getChildIds() {
-		String[] parts = this.getId().split(ID_DELIM);
-		int newLevel = Integer.parseInt(parts[0]) + 1;
-		List<String> ids = new Vector<String>();
-		int childBase = Integer.parseInt(parts[1])
-				* this.getDecompositionSize();
-		for (int childNumber = childBase; childNumber < childBase
-				+ this.getDecompositionSize(); childNumber++) {
-			String childId = newLevel + ID_DELIM + childNumber;
-			ids.add(childId);
-		}
-		return ids;
+	public long getJobId() {
+		return this.jobId;
+	}
+
+	@Override
+	public void setJobId(long jobId) {
+		this.jobId = jobId;
+	}
+
+	/**
+	 * Tasks which do not search by branch-and-bound know no lower bound
+	 */
+	@Override
+	public double getLowerBound() {
+		return Double.NEGATIVE_INFINITY;
 	}
 
 	public void setStartTime(long startTime) {
@@ -92,28 +91,26 @@ public abstract  class TaskBase<T> implements Task<T>, Serializable {
 		return startTime;
 	}
 
-	protected void init(Task.Status s, String taskId, String parentId) {
+	protected void init(Task.Status s, long taskId, long parentId) {
 		this.setStatus(s);
 		this.setId(taskId);
 		this.setParentId(parentId);
 	}
 
 	protected int getTaskLevel() {
-		String[] parts = this.getId().split(ID_DELIM);
-		int level = Integer.parseInt(parts[0]);
-		return level;
+		return (int) (this.getId() >>> ID_LEVEL_SHIFT);
 	}
 
 
 	@Override
 	public Object getShared() throws RemoteException {
-		return computer.getShared();
+		return computer.getShared(getJobId());
 	}
 
 	
 	@Override
 	public void setShared(Shared<?> shared) throws RemoteException {
-		computer.broadcast(shared);
+		computer.broadcast(getJobId(), shared);
 	}
 
 	
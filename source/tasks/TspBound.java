@@ -0,0 +1,43 @@
+package tasks;
+
+import java.io.Serializable;
+
+/**
+ * A strategy for computing a lower bound on the length of every complete tour
+ * that extends a partial route of a <a
+ * href="http://en.wikipedia.org/wiki/Travelling_salesman_problem">Travelling
+ * Salesman Problem</a>. A {@link tasks.TspTask TspTask} prunes the subtree
+ * rooted at a route when the lower bound of the route exceeds the length of
+ * the shortest tour found so far.
+ * 
+ * Stronger bounds prune more of the search tree, but cost more to compute for
+ * each node. Strategies are passed along with the tasks of a job, so
+ * implementations must be serializable.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public interface TspBound extends Serializable {
+
+	/**
+	 * 
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 * @param firstCity
+	 *            First city of the partial route
+	 * @param lastCity
+	 *            Last city of the partial route
+	 * @param length
+	 *            Length of the partial route
+	 * @param visited
+	 *            Bitmask of the cities in the route
+	 * @param upperBound
+	 *            Length of the shortest tour found so far, or
+	 *            Double.POSITIVE_INFINITY if there is none yet. A strategy may
+	 *            stop tightening its bound once it exceeds this value.
+	 * @return A lower bound on the length of every complete tour which starts
+	 *         with the route
+	 */
+	double computeLowerBound(TspGraph graph, int firstCity, int lastCity,
+			double length, long visited, double upperBound);
+}
@@ -0,0 +1,206 @@
+package tasks;
+
+import java.awt.geom.Point2D;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The complete graph of a <a
+ * href="http://en.wikipedia.org/wiki/Travelling_salesman_problem">Travelling
+ * Salesman Problem</a> job. It holds the table of immutable
+ * {@link tasks.TspTask.City City} flyweights, indexed by label, and the
+ * distance between every pair of them.
+ *
+ * The n x n distance matrix is computed once per job in every JVM and is laid
+ * out row by row in a flat array, so that the distance from city i to city j
+ * is found at index i * n + j. The other cities sorted by distance from
+ * each city, and the shortest edge leaving each city, are precomputed along
+ * with it. Only the city table is serialized, and a deserialized graph is
+ * replaced by the copy which the JVM has already cached for the same job, if
+ * any. All tasks of a job therefore share one matrix on each computer.
+ *
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspGraph implements Serializable {
+
+	private static final long serialVersionUID = 4402816633618232418L;
+
+	// Number of graphs cached by a JVM, one for each of the most recent jobs
+	private static final int CACHE_SIZE = 16;
+
+	private static final Map<Long, TspGraph> cache = Collections
+			.synchronizedMap(new LinkedHashMap<Long, TspGraph>(CACHE_SIZE,
+					0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Long, TspGraph> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			});
+
+	private final long graphId;
+	private final TspTask.City[] cities;
+	private transient double[] distances;
+	private transient double[] cheapestEdges;
+	private transient int[] neighbours;
+
+	/**
+	 * @param cities
+	 *            Represents the x and y coordinates of cities. cities[i][0] is
+	 *            the x-coordinate of city[i] and cities[i][1] is the
+	 *            y-coordinate of city[i].
+	 */
+	public TspGraph(double[][] cities) {
+		this.graphId = new Random().nextLong();
+		this.cities = new TspTask.City[cities.length];
+		for (int i = 0; i < cities.length; i++) {
+			this.cities[i] = new TspTask.City(i, cities[i][0], cities[i][1]);
+		}
+		computeDistances();
+	}
+
+	private void computeDistances() {
+		int n = cities.length;
+		this.distances = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				distances[i * n + j] = Point2D.distance(cities[i].getX(),
+						cities[i].getY(), cities[j].getX(), cities[j].getY());
+			}
+		}
+		/*
+		 * Row i of the neighbour table lists the other n - 1 cities by
+		 * increasing distance from city i, sorted by insertion
+		 */
+		this.neighbours = new int[n * (n - 1)];
+		this.cheapestEdges = new double[n];
+		for (int i = 0; i < n; i++) {
+			int row = i * (n - 1);
+			int size = 0;
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					int k = size++;
+					while (k > 0
+							&& distances[i * n + neighbours[row + k - 1]] > distances[i
+									* n + j]) {
+						neighbours[row + k] = neighbours[row + k - 1];
+						k--;
+					}
+					neighbours[row + k] = j;
+				}
+			}
+			cheapestEdges[i] = (n == 1) ? 0.0d : distances[i * n
+					+ neighbours[row]];
+		}
+	}
+
+	/**
+	 *
+	 * @return Number of cities in the graph
+	 */
+	public int size() {
+		return cities.length;
+	}
+
+	/**
+	 *
+	 * @return The city with the given label
+	 */
+	public TspTask.City getCity(int label) {
+		return cities[label];
+	}
+
+	/**
+	 *
+	 * @return The distance between two cities
+	 */
+	public double distance(int from, int to) {
+		return distances[from * cities.length + to];
+	}
+
+	/**
+	 *
+	 * @param city
+	 *            Label of a city
+	 * @param rank
+	 *            Rank of the neighbour, from 0 for the nearest one to n - 2
+	 *            for the farthest one
+	 * @return The label of the rank-th nearest other city to the city
+	 */
+	public int neighbour(int city, int rank) {
+		return neighbours[city * (cities.length - 1) + rank];
+	}
+
+	/**
+	 *
+	 * @return The length of the shortest edge leaving a city
+	 */
+	public double cheapestEdge(int city) {
+		return cheapestEdges[city];
+	}
+
+	/**
+	 *
+	 * @return The sum of the shortest edges leaving each city in a set
+	 */
+	public double cheapestEdgeSum(long cities) {
+		double sum = 0.0d;
+		for (long cs = cities; cs != 0; cs &= cs - 1) {
+			sum += cheapestEdges[Long.numberOfTrailingZeros(cs)];
+		}
+		return sum;
+	}
+
+	/**
+	 *
+	 * @return Bitmask of the cities which are not in the given set
+	 */
+	public long unvisited(long visited) {
+		int n = cities.length;
+		long all = (n == Long.SIZE) ? -1L : (1L << n) - 1;
+		return all & ~visited;
+	}
+
+	/**
+	 *
+	 * @return The length of a route, without the edge back to its first city
+	 */
+	public double routeLength(int[] route) {
+		double length = 0.0d;
+		for (int i = 0; i < route.length - 1; i++) {
+			length += distance(route[i], route[i + 1]);
+		}
+		return length;
+	}
+
+	/**
+	 *
+	 * @return The length of a tour, including the edge back to its first city
+	 */
+	public double tourLength(int[] tour) {
+		return routeLength(tour) + distance(tour[tour.length - 1], tour[0]);
+	}
+
+	/**
+	 * Replaces a deserialized graph by the copy cached for the same job, so
+	 * that the distance matrix is computed only once per JVM
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		synchronized (cache) {
+			TspGraph cached = cache.get(graphId);
+			if (cached == null) {
+				computeDistances();
+				cache.put(graphId, this);
+				cached = this;
+			}
+			return cached;
+		}
+	}
+}
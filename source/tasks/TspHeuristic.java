@@ -0,0 +1,171 @@
+package tasks;
+
+/**
+ * Finds a short, though not necessarily optimal, tour of a <a
+ * href="http://en.wikipedia.org/wiki/Travelling_salesman_problem">Travelling
+ * Salesman Problem</a> in polynomial time. The length of the tour is a good
+ * initial upper bound for the branch-and-bound search of a
+ * {@link tasks.TspTask TspTask}, which can then prune from the start.
+ * 
+ * A nearest neighbour tour is improved by <a
+ * href="http://en.wikipedia.org/wiki/2-opt">2-opt</a> moves, which reverse a
+ * section of the tour, and Or-opt moves, which move a section of up to three
+ * cities elsewhere in the tour, until neither finds an improvement.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspHeuristic {
+
+	// Smallest decrease in length for which a move is made
+	private static final double EPSILON = 1e-9;
+
+	// Longest section of the tour moved by Or-opt
+	private static final int MAX_SEGMENT_LENGTH = 3;
+
+	private final TspGraph graph;
+	private final int n;
+
+	/**
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 */
+	public TspHeuristic(TspGraph graph) {
+		this.graph = graph;
+		this.n = graph.size();
+	}
+
+	/**
+	 * 
+	 * @return A locally optimal tour, starting at city 0
+	 */
+	public int[] findTour() {
+		int[] tour = findNearestNeighbourTour();
+		boolean improved = true;
+		while (improved) {
+			improved = twoOpt(tour);
+			improved = orOpt(tour) || improved;
+		}
+		return tour;
+	}
+
+	/**
+	 * 
+	 * @return The tour which starts at city 0 and always moves on to the
+	 *         nearest unvisited city
+	 */
+	private int[] findNearestNeighbourTour() {
+		int[] tour = new int[n];
+		boolean[] visited = new boolean[n];
+		visited[0] = true;
+		for (int i = 1; i < n; i++) {
+			int rank = 0;
+			int next = graph.neighbour(tour[i - 1], rank);
+			while (visited[next]) {
+				next = graph.neighbour(tour[i - 1], ++rank);
+			}
+			tour[i] = next;
+			visited[next] = true;
+		}
+		return tour;
+	}
+
+	/**
+	 * Replaces pairs of edges (a, b) and (c, d) by (a, c) and (b, d) wherever
+	 * this shortens the tour, by reversing the section from b to c. City 0 is
+	 * never moved.
+	 * 
+	 * @return True if the tour was improved
+	 */
+	private boolean twoOpt(int[] tour) {
+		boolean improved = false;
+		for (int i = 0; i < n - 2; i++) {
+			for (int j = i + 2; j < n; j++) {
+				if (i == 0 && j == n - 1) {
+					continue;
+				}
+				int a = tour[i];
+				int b = tour[i + 1];
+				int c = tour[j];
+				int d = tour[(j + 1) % n];
+				double delta = graph.distance(a, c) + graph.distance(b, d)
+						- graph.distance(a, b) - graph.distance(c, d);
+				if (delta < -EPSILON) {
+					reverse(tour, i + 1, j);
+					improved = true;
+				}
+			}
+		}
+		return improved;
+	}
+
+	private static void reverse(int[] tour, int from, int to) {
+		while (from < to) {
+			int city = tour[from];
+			tour[from++] = tour[to];
+			tour[to--] = city;
+		}
+	}
+
+	/**
+	 * Moves a section of up to {@link #MAX_SEGMENT_LENGTH} cities between two
+	 * other adjacent cities of the tour, in either direction, wherever this
+	 * shortens the tour. City 0 is never moved.
+	 * 
+	 * @return True if the tour was improved
+	 */
+	private boolean orOpt(int[] tour) {
+		boolean improved = false;
+		for (int length = 1; length <= MAX_SEGMENT_LENGTH && length < n - 2; length++) {
+			for (int i = 1; i + length <= n; i++) {
+				int p = tour[i - 1];
+				int first = tour[i];
+				int last = tour[i + length - 1];
+				int q = tour[(i + length) % n];
+				double removed = graph.distance(p, first)
+						+ graph.distance(last, q) - graph.distance(p, q);
+
+				// Try every edge (x, y) outside the section and next to it
+				for (int j = 0; j < n; j++) {
+					if (j >= i - 1 && j < i + length) {
+						continue;
+					}
+					int x = tour[j];
+					int y = tour[(j + 1) % n];
+					double added = graph.distance(x, first)
+							+ graph.distance(last, y) - graph.distance(x, y);
+					double reversedAdded = graph.distance(x, last)
+							+ graph.distance(first, y) - graph.distance(x, y);
+					boolean reversed = reversedAdded < added;
+					if (Math.min(added, reversedAdded) < removed - EPSILON) {
+						move(tour, i, length, j, reversed);
+						improved = true;
+						break;
+					}
+				}
+			}
+		}
+		return improved;
+	}
+
+	/*
+	 * Moves the section of the given length starting at index i so that it
+	 * follows the city at index j
+	 */
+	private void move(int[] tour, int i, int length, int j, boolean reversed) {
+		int[] section = new int[length];
+		System.arraycopy(tour, i, section, 0, length);
+		if (reversed) {
+			reverse(section, 0, length - 1);
+		}
+		if (j > i) {
+			// Shift the cities after the section back and insert it after x
+			System.arraycopy(tour, i + length, tour, i, j - i - length + 1);
+			System.arraycopy(section, 0, tour, j - length + 1, length);
+		} else {
+			// Shift the cities before the section forward
+			System.arraycopy(tour, j + 1, tour, j + 1 + length, i - j - 1);
+			System.arraycopy(section, 0, tour, j + 1, length);
+		}
+	}
+}
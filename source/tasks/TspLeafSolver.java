@@ -0,0 +1,180 @@
+package tasks;
+
+/**
+ * Completes a partial route of a <a
+ * href="http://en.wikipedia.org/wiki/Travelling_salesman_problem">Travelling
+ * Salesman Problem</a> optimally by dynamic programming over the subsets of its
+ * unvisited cities, as proposed by Held and Karp.
+ * 
+ * For every subset S of the k unvisited cities and every city j in S, the
+ * solver finds the shortest path which leaves the last city of the route,
+ * visits exactly the cities in S and ends at j. This takes O(2^k * k^2) time
+ * and O(2^k * k) space, whatever the distances, which beats a depth-first
+ * search once k is small enough. Paths which cannot lead to a tour shorter
+ * than the upper bound are dropped.
+ * 
+ * The tables of each thread are allocated once and reused.
+ * 
+ * @author Manasa Chandrasekhar
+ * @author Kowshik Prakasam
+ */
+public class TspLeafSolver {
+
+	// Working arrays of each thread, reused by every route it completes
+	private static final ThreadLocal<TspLeafSolver> solvers = new ThreadLocal<TspLeafSolver>() {
+		@Override
+		protected TspLeafSolver initialValue() {
+			return new TspLeafSolver();
+		}
+	};
+
+	private int[] cities = new int[0];
+	private double[] lengths = new double[0];
+
+	private TspLeafSolver() {
+	}
+
+	/**
+	 * 
+	 * @return The solver of the calling thread
+	 */
+	public static TspLeafSolver getSolver() {
+		return solvers.get();
+	}
+
+	/**
+	 * Finds the shortest tour which starts with a partial route, if it is
+	 * shorter than the upper bound.
+	 * 
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 * @param path
+	 *            Array whose first depth + 1 entries hold the partial route,
+	 *            starting at city 0. If a shorter tour is found, the rest of
+	 *            the array is filled with the rest of the tour.
+	 * @param depth
+	 *            Index of the last city of the route in the path
+	 * @param visited
+	 *            Bitmask of the cities in the route
+	 * @param length
+	 *            Length of the route
+	 * @param upperBound
+	 *            Length of the shortest tour found so far, or
+	 *            Double.POSITIVE_INFINITY if there is none yet
+	 * @return The length of the shortest tour which starts with the route, or
+	 *         Double.POSITIVE_INFINITY if it is not shorter than the upper
+	 *         bound
+	 */
+	public double completeRoute(TspGraph graph, int[] path, int depth,
+			long visited, double length, double upperBound) {
+		int firstCity = path[0];
+		int lastCity = path[depth];
+		long remaining = graph.unvisited(visited);
+		int k = Long.bitCount(remaining);
+		if (k == 0) {
+			double tourLength = length + graph.distance(lastCity, firstCity);
+			return (tourLength < upperBound) ? tourLength
+					: Double.POSITIVE_INFINITY;
+		}
+		ensureCapacity(k);
+		int i = 0;
+		for (long cs = remaining; cs != 0; cs &= cs - 1) {
+			cities[i++] = Long.numberOfTrailingZeros(cs);
+		}
+
+		// Budget left for the rest of the tour
+		double budget = upperBound - length;
+		double cheapestEdgeSum = graph.cheapestEdgeSum(remaining);
+		int full = (1 << k) - 1;
+		for (int index = 0; index < (full + 1) * k; index++) {
+			lengths[index] = Double.POSITIVE_INFINITY;
+		}
+		for (i = 0; i < k; i++) {
+			double d = graph.distance(lastCity, cities[i]);
+			if (d + cheapestEdgeSum < budget) {
+				lengths[(1 << i) * k + i] = d;
+			}
+		}
+
+		/*
+		 * Subsets are visited in increasing order, so every subset is final
+		 * before it is extended
+		 */
+		for (int subset = 1; subset < full; subset++) {
+
+			/*
+			 * The path must still leave its end and each city outside the
+			 * subset by at least their shortest edges
+			 */
+			double unreached = cheapestEdgeSum;
+			for (i = 0; i < k; i++) {
+				if ((subset & (1 << i)) != 0) {
+					unreached -= graph.cheapestEdge(cities[i]);
+				}
+			}
+			for (int j = 0; j < k; j++) {
+				double pathLength = lengths[subset * k + j];
+				if (pathLength == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				for (int next = 0; next < k; next++) {
+					if ((subset & (1 << next)) != 0) {
+						continue;
+					}
+					double d = pathLength
+							+ graph.distance(cities[j], cities[next]);
+					int index = (subset | (1 << next)) * k + next;
+					if (d + unreached < budget && d < lengths[index]) {
+						lengths[index] = d;
+					}
+				}
+			}
+		}
+
+		// Close the tour through the cheapest last city
+		int end = -1;
+		double best = budget;
+		for (int j = 0; j < k; j++) {
+			double d = lengths[full * k + j]
+					+ graph.distance(cities[j], firstCity);
+			if (d < best) {
+				best = d;
+				end = j;
+			}
+		}
+		if (end < 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		// Walk the table back from the last city to fill in the path
+		int subset = full;
+		int j = end;
+		for (int position = depth + k; position > depth; position--) {
+			path[position] = cities[j];
+			int previousSubset = subset & ~(1 << j);
+			if (previousSubset == 0) {
+				break;
+			}
+			double pathLength = lengths[subset * k + j];
+			for (int p = 0; p < k; p++) {
+				if ((previousSubset & (1 << p)) != 0
+						&& lengths[previousSubset * k + p]
+								+ graph.distance(cities[p], cities[j]) == pathLength) {
+					j = p;
+					break;
+				}
+			}
+			subset = previousSubset;
+		}
+		return length + best;
+	}
+
+	private void ensureCapacity(int k) {
+		if (cities.length < k) {
+			cities = new int[k];
+		}
+		if (lengths.length < (1 << k) * k) {
+			lengths = new double[(1 << k) * k];
+		}
+	}
+}
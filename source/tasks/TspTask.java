@@ -1,10 +1,8 @@
 package tasks;
 
-import java.awt.geom.Point2D;
 import java.io.Serializable;
 import java.rmi.RemoteException;
 import java.util.List;
-import java.util.Stack;
 import java.util.Vector;
 
 import system.ResultImpl;
@@ -21,22 +19,23 @@ import api.Task;
  * @author Manasa Chandrasekhar
  * @author Kowshik Prakasam
  */
-public class TspTask extends TaskBase<List<TspTask.City>> implements
-		Serializable {
+public class TspTask extends TaskBase<int[]> implements Serializable {
 
 	/**
 	 * Represents a city in the travelling salesman problem by defining its
-	 * x-coordinate, y-coordinate and label.
+	 * x-coordinate, y-coordinate and label. Cities are immutable flyweights
+	 * held in the job's {@link tasks.TspGraph TspGraph}; routes and tours refer
+	 * to them by label, which is their index in the graph.
 	 * 
 	 * @author Manasa Chandrasekhar
 	 * @author Kowshik Prakasam*
 	 */
-	public class City implements Serializable {
+	public static final class City implements Serializable {
 
 		private static final long serialVersionUID = -8660442769258565881L;
-		private double x;
-		private double y;
-		private int label;
+		private final double x;
+		private final double y;
+		private final int label;
 
 		public City(int label, double x, double y) {
 			this.x = x;
@@ -44,26 +43,14 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 			this.label = label;
 		}
 
-		public void setX(int x) {
-			this.x = x;
-		}
-
 		public double getX() {
 			return x;
 		}
 
-		public void setY(int y) {
-			this.y = y;
-		}
-
 		public double getY() {
 			return y;
 		}
 
-		public void setLabel(int label) {
-			this.label = label;
-		}
-
 		public int getLabel() {
 			return label;
 		}
@@ -74,218 +61,238 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 
 		@Override
 		public boolean equals(Object c) {
-			return this.getLabel() == (((City) c).getLabel());
+			return (c instanceof City)
+					&& this.getLabel() == (((City) c).getLabel());
+		}
+
+		@Override
+		public int hashCode() {
+			return label;
 		}
 
 	}
 
 	private static final long serialVersionUID = 3276207466199157936L;
-	private List<City> citiesList;
-	private List<City> currentRoute;
-	private City startCity;
+
+	// Largest number of cities whose visited set fits in a long bitmask
+	public static final int MAX_CITIES = Long.SIZE;
+
+	/*
+	 * Fewest unvisited cities for which a node is bounded by the task's
+	 * TspBound, below which the constant-time bound alone is used
+	 */
+	private static final int STRONG_BOUND_MIN_CITIES = Integer.getInteger(
+			"tsp.strongBoundMinCities", 4);
+
+	/*
+	 * Largest estimated cost, in steps of the dynamic program, for which the
+	 * subtree of a node is solved by the TspLeafSolver instead of being
+	 * searched. The default solves nodes with up to four unvisited cities.
+	 */
+	private static final long LEAF_SOLVER_MAX_COST = Long.getLong(
+			"tsp.leafSolverMaxCost", 256);
+
+	/*
+	 * Whether the children of a node are tried nearest first, or else by
+	 * increasing label, which keeps them from being pruned with a farther
+	 * sibling
+	 */
+	private static final boolean NEAREST_FIRST = Boolean.parseBoolean(System
+			.getProperty("tsp.nearestFirst", "true"));
+
+	private TspGraph graph;
+	private int[] route;
+	private long visited;
 	private int numberOfChildren;
-	private double lowerBound;
-	private List<List<City>> values;
+	private TspBound bound;
+	private List<int[]> values;
 
-	// Permisible recursion level beyond which the problem is solved locally
-	private static final int NUMBER_OF_LEVELS = 5;
+	// Lower bound of the route, computed when it is first asked for
+	private double lowerBound;
 
 	/**
 	 * @param cities
 	 *            Represents the x and y coordinates of cities. cities[i][0] is
 	 *            the x-coordinate of city[i] and cities[i][1] is the
 	 *            y-coordinate of city[i].
+	 * @throws IllegalArgumentException
+	 *             If there are more than {@link #MAX_CITIES} cities
 	 */
 
 	public TspTask(double[][] cities) {
+		this(cities, new HeldKarpBound());
+	}
+
+	/**
+	 * @param cities
+	 *            Represents the x and y coordinates of cities. cities[i][0] is
+	 *            the x-coordinate of city[i] and cities[i][1] is the
+	 *            y-coordinate of city[i].
+	 * @param bound
+	 *            Strategy used to compute the lower bound of each route in the
+	 *            search tree
+	 * @throws IllegalArgumentException
+	 *             If there are more than {@link #MAX_CITIES} cities
+	 */
+	public TspTask(double[][] cities, TspBound bound) {
+		this(new TspGraph(cities), bound);
+	}
+
+	/**
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 * @param bound
+	 *            Strategy used to compute the lower bound of each route in the
+	 *            search tree
+	 * @throws IllegalArgumentException
+	 *             If there are more than {@link #MAX_CITIES} cities
+	 */
+	public TspTask(TspGraph graph, TspBound bound) {
 		super(DEFAULT_TASK_ID, DEFAULT_TASK_ID, Task.Status.DECOMPOSE, System
 				.currentTimeMillis());
-		citiesList = new Vector<City>();
-		for (int cityIndex = 0; cityIndex < cities.length; cityIndex++) {
-			citiesList.add(new City(cityIndex, cities[cityIndex][0],
-					cities[cityIndex][1]));
+		if (graph.size() > MAX_CITIES) {
+			throw new IllegalArgumentException("At most " + MAX_CITIES
+					+ " cities are supported, got " + graph.size());
 		}
-		this.startCity = new City(0, cities[0][0], cities[0][1]);
-		this.currentRoute = new Vector<City>();
-		this.currentRoute.add(this.startCity);
-		this.numberOfChildren = citiesList.size() - 1;
-		this.lowerBound = 0.0f;
-
+		this.graph = graph;
+		this.bound = bound;
+		this.route = new int[] { 0 };
+		this.visited = 1L;
+		this.numberOfChildren = graph.size() - 1;
+		this.lowerBound = Double.NaN;
 	}
 
 	/**
 	 * This constructor is used by the decompose method to generate new Sub
 	 * Tasks of of the given TSP task.
 	 * 
-	 * @param startCity
-	 *            Represents the starting City for the current tour being
-	 *            calculated
+	 * @param graph
+	 *            Cities and distance matrix of the job
+	 * @param bound
+	 *            Strategy used to compute lower bounds
 	 * @param route
-	 *            The route which has been computed so far
-	 * @param citiesList
-	 *            The list of cities which are not part of the computed route
-	 * @param taskId
-	 *            Id of the current task
+	 *            The route which has been computed so far, starting at city 0
+	 *            and ending at the start city of this task
+	 * @param visited
+	 *            Bitmask of the cities in the route
 	 * @param parentId
 	 *            Id of the parent task
-	 * @param s
-	 *            {@link api.Task.Status Status of a task}
-	 * @param lowerBound
-	 *            The computed value of the lower bound of the parent node which
-	 *            will be passed to the child tasks
 	 * 
 	 */
 
-	private TspTask(City startCity, List<City> route, List<City> citiesList,
-			String taskId, String parentId, Task.Status s, double lowerBound) {
-		super(taskId, parentId, Task.Status.DECOMPOSE, System
+	private TspTask(TspGraph graph, TspBound bound, int[] route,
+			long visited, long parentId) {
+		super(UNASSIGNED_ID, parentId, Task.Status.DECOMPOSE, System
 				.currentTimeMillis());
-		this.citiesList = citiesList;
-		this.startCity = startCity;
-		this.currentRoute = new Vector<City>(route);
-		this.currentRoute.add(this.startCity);
-		this.numberOfChildren = citiesList.size();
-		this.lowerBound = computeLowerBound(this.currentRoute, this.citiesList);
+		this.graph = graph;
+		this.bound = bound;
+		this.route = route;
+		this.visited = visited;
+		this.numberOfChildren = Long.bitCount(graph.unvisited(visited));
+		this.lowerBound = Double.NaN;
 	}
 
 	/**
+	 * Implements the decompose phase of TSP divide and conquer solution. The
+	 * subtree rooted at this task is searched locally (see
+	 * {@link #findMinRoute()}), starting with a check of the lower bound of
+	 * this task's route against the latest upper bound. If the lower bound is
+	 * greater, this node in the search tree is not explored further and it is
+	 * pruned.
+	 * 
+	 * The search is split into subtasks only when the compute space asks for
+	 * work on behalf of idle computers, so the shape of the decomposition tree
+	 * adapts to the instance and to the cluster.
 	 * 
-	 * @return The lowerBound for every new child task is calculated and
-	 *         returned using the two shortest edges incident on each city
 	 */
-	private double computeLowerBound(List<City> currentRoute,
-			List<City> citiesList) {
-
-		City firstCity = currentRoute.get(0);
-		City lastCity = currentRoute.get(currentRoute.size() - 1);
-		List<City> options = new Vector<City>(citiesList);
-		options.add(lastCity);
-
-		// Find length of current partial tour
-		double minEdgeCostSum = findRouteLength(currentRoute);
-		;
+	private Result<int[]> decompose() {
+		return findMinRoute();
+	}
 
-		/*
-		 * Tighten the lower bound by adding only those edges that have a
-		 * minimum cost among the set of remaining edges in the graph
-		 */
-		double minEdgeCost = 0.0d;
-		for (City c : options) {
-			minEdgeCost = 0.0d;
-			if (!firstCity.equals(lastCity)) {
-				minEdgeCost = findLength(c, firstCity);
-			}
-			minEdgeCost = findLength(c, firstCity);
-			for (City otherCity : options) {
-				if (!otherCity.equals(c)) {
-					double thisLength = findLength(c, otherCity);
-					if (thisLength < minEdgeCost) {
-						minEdgeCost = thisLength;
+	/**
+	 * Creates a subtask for each unexplored node of the depth-first search:
+	 * the node which is about to be searched, and every untried child of the
+	 * nodes on its route. Shallower nodes root larger subtrees, so they are
+	 * placed at the end of the list where idle computers steal from. The
+	 * children of each node are listed nearest first, so that the computer
+	 * which splits the search goes on with the most promising one.
+	 * 
+	 * @param path
+	 *            Route of the node which is about to be searched
+	 * @param depth
+	 *            Index of the last city of the node in the path
+	 * @param untried
+	 *            Untried children of the node at each depth of the path
+	 * @param ranks
+	 *            Rank, among the neighbours of the node at each depth, of the
+	 *            next child to try
+	 * @param openDepths
+	 *            Bitmask of the depths that have untried children
+	 * @return Subtasks which search the subtrees rooted at the nodes
+	 */
+	private List<Task<int[]>> split(int[] path, int depth, long[] untried,
+			int[] ranks, long openDepths) {
+		List<Task<int[]>> subTasks = new Vector<Task<int[]>>();
+		subTasks.add(subTask(path, depth + 1, -1));
+		for (int d = depth - 1; d >= 0; d--) {
+			if ((openDepths & (1L << d)) != 0) {
+				for (int rank = ranks[d]; rank < graph.size() - 1; rank++) {
+					int kid = graph.neighbour(path[d], rank);
+					if ((untried[d] & (1L << kid)) != 0) {
+						subTasks.add(subTask(path, d + 1, kid));
 					}
 				}
 			}
-
-			// Add min edge cost
-			minEdgeCostSum += minEdgeCost;
 		}
-		return minEdgeCostSum;
-
+		this.numberOfChildren = subTasks.size();
+		return subTasks;
 	}
 
 	/**
-	 * Implements the decompose phase of TSP divide and conquer solution. Every
-	 * task calculates its new lower-bound initially and checks if it is lesser
-	 * than the existing upper-bound.
-	 * 
-	 * If yes, then the task continues with the decomposition. A solution and a
-	 * new upper-bound are computed if the task is the last node in the
-	 * decomposition tree (or) the decomposition has reached an internal
-	 * restricted recursion depth. The new upper-bound is communicated to the
-	 * compute space.
-	 * 
-	 * Else, this node in the search tree is not explored further and it is
-	 * pruned.
-	 * 
 	 * 
+	 * @param path
+	 *            Route whose prefix is the route of the subtask
+	 * @param length
+	 *            Number of cities of the path in the prefix
+	 * @param kid
+	 *            City appended to the prefix, or -1 if there is none
+	 * @return A subtask which searches the subtree rooted at the route
 	 */
-	private Result<List<City>> decompose() {
-		Result<List<City>> r = new ResultImpl<List<City>>();
-		try {
-			// Get the shared object from the computer
-			TspShared compShared = (TspShared) this.computer.getShared();
-
-			// Is lower-bound greater than upper-bound ?
-			if (compShared.get().equals(TspShared.INFINITY)
-					|| lowerBound <= compShared.get()) {
-
-				/*
-				 * Has the decomposition hit the permissible depth of recursion
-				 * ?
-				 */
-				if (this.currentRoute.size() < NUMBER_OF_LEVELS) {
-					List<Task<List<City>>> subTasks = new Vector<Task<List<City>>>();
-					List<String> childIds = this.getChildIds();
-					int childIndex = 0;
-
-					/*
-					 * Find child cities for next level of decomposition and
-					 * create subtasks
-					 */
-					for (int i = 0; i < citiesList.size(); i++) {
-						if (!citiesList.get(i).equals(this.startCity)) {
-							City newStartCity = citiesList.get(i);
-							String childId = childIds.get(childIndex);
-							childIndex++;
-							List<City> childCities = new Vector<City>();
-							for (int j = 0; j < citiesList.size(); j++) {
-								if (!citiesList.get(j).equals(this.startCity)
-										&& !citiesList.get(j).equals(
-												newStartCity)) {
-									childCities.add(citiesList.get(j));
-								}
-							}
-							TspTask childTask = new TspTask(newStartCity,
-									this.currentRoute, childCities, childId,
-									this.getId(), Task.Status.DECOMPOSE,
-									lowerBound);
-							subTasks.add(childTask);
-						}
-					}
-
-					r.setSubTasks(subTasks);
-					return r;
-				}
-
-				/*
-				 * If max recursion depth has been reached, then find the
-				 * minimum-cost route among remaining cities locally
-				 */
-				r.setValue(findMinRoute());
-				return r;
-			}
-			/*
-			 * If lower-bound is greater than upper-bound, then prune this node
-			 * and return a null value
-			 */
-			r.setValue(null);
-			return r;
-		} catch (RemoteException e) {
-			e.printStackTrace();
+	private TspTask subTask(int[] path, int length, int kid) {
+		int[] route = new int[(kid < 0) ? length : length + 1];
+		System.arraycopy(path, 0, route, 0, length);
+		if (kid >= 0) {
+			route[length] = kid;
 		}
-		return null;
-
+		long routeVisited = 0L;
+		for (int city : route) {
+			routeVisited |= 1L << city;
+		}
+		return new TspTask(graph, bound, route, routeVisited, this.getId());
 	}
 
 	/**
-	 * Computes the distance between two points
+	 * Bounds the route of this task as the search does, without an upper
+	 * bound. It is computed only by a compute space which keeps the bounds of
+	 * the unfinished tasks of a job, and then once per task.
+	 * 
+	 * @see api.Task#getLowerBound()
 	 */
-	private double findLength(City c1, City c2) {
-		double x1 = c1.getX();
-		double y1 = c1.getY();
-		double x2 = c2.getX();
-		double y2 = c2.getY();
-		return Point2D.distance(x1, y1, x2, y2);
-
+	@Override
+	public double getLowerBound() {
+		if (Double.isNaN(lowerBound)) {
+			int lastCity = route[route.length - 1];
+			long kids = graph.unvisited(visited);
+			double length = graph.routeLength(route);
+			lowerBound = length + graph.cheapestEdge(lastCity)
+					+ graph.cheapestEdgeSum(kids);
+			if (Long.bitCount(kids) >= STRONG_BOUND_MIN_CITIES) {
+				lowerBound = Math.max(lowerBound, bound.computeLowerBound(
+						graph, route[0], lastCity, length, visited,
+						Double.POSITIVE_INFINITY));
+			}
+		}
+		return lowerBound;
 	}
 
 	@Override
@@ -297,52 +304,39 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	}
 
 	/**
-	 * Implements the conquer phase of TSP divide and conquer solution.
-	 * 
-	 * Used by the successor of each task to integrate the routes returned by
-	 * all its children and find the least cost route from all of them.
+	 * Implements the conquer phase of TSP divide and conquer solution. Every
+	 * value is either a complete tour found in a subtree of this task, or
+	 * null if the subtree was pruned. The shortest complete tour is returned.
 	 * 
 	 */
-	private Result<List<City>> compose() {
+	private Result<int[]> compose() {
 
 		/*
 		 * getValues() may contain null values since a Node can die due
-		 * to pruning. So before type casting to List<List<City>>, we do a null
+		 * to pruning. So before type casting to List<int[]>, we do a null
 		 * check.
 		 * 
 		 * If the list is null, then create an empty ResultImpl object and
 		 * return it.
 		 * 
-		 * Else, compute the route with the minimum distance among the list of
-		 * routes passed. Return this min-distance route in a ResultImpl object.
+		 * Else, compute the tour with the minimum distance among the list of
+		 * tours passed. Return this min-distance tour in a ResultImpl object.
 		 */
 
-		List<List<City>> minRoutes=this.getValues();
-		Result<List<City>> r = new ResultImpl<List<City>>();
+		List<int[]> minRoutes=this.getValues();
+		Result<int[]> r = new ResultImpl<int[]>();
 		if (minRoutes != null) {
-			List<City> chosenMinRoute = null;
+			int[] chosenMinRoute = null;
 			double minLength = Double.MAX_VALUE;
-			int level = this.getTaskLevel();
-			for (List<City> route : minRoutes) {
+			for (int[] route : minRoutes) {
 				if (route != null) {
-					City routeStartCity = route.get(0);
-
-					double thisLength = findRouteLength(route)
-							+ findLength(this.startCity, routeStartCity);
-					if (level == DEFAULT_TASK_LEVEL) {
-						City routeEndCity = route.get(route.size() - 1);
-						thisLength += findLength(this.startCity, routeEndCity);
-					}
-
+					double thisLength = findTourLength(route);
 					if (thisLength < minLength) {
 						minLength = thisLength;
 						chosenMinRoute = route;
 					}
 				}
 			}
-			if (chosenMinRoute != null) {
-				chosenMinRoute.add(0, this.startCity);
-			}
 			r.setValue(chosenMinRoute);
 			return r;
 		} else {
@@ -353,110 +347,220 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 
 	/**
 	 * 
-	 * @param aListOfCities
-	 *            A list of Cities whose route length has be calculated.
-	 * @return The length of the route among the set of Cities recieved.
+	 * @param route
+	 *            A route of cities whose length has be calculated.
+	 * @return The length of the route, without the edge back to its first city
 	 * 
 	 */
-	private double findRouteLength(List<City> aListOfCities) {
+	private double findRouteLength(int[] route) {
+		return graph.routeLength(route);
+	}
 
-		double length = 0.0d;
-		int i;
-		for (i = 0; i < aListOfCities.size() - 1; i++) {
-			length += findLength(aListOfCities.get(i), aListOfCities.get(i + 1));
-		}
-		return length;
+	/**
+	 * 
+	 * @param tour
+	 *            A complete tour of cities
+	 * @return The length of the tour, including the edge back to its first
+	 *         city
+	 */
+	private double findTourLength(int[] tour) {
+		return graph.tourLength(tour);
 	}
 
 	/**
-	 * Returns the minimum-cost route among cities in this sub-task using a
-	 * depth-first search algorithm. Each new minimum-cost is propagated to the
-	 * compute space.
+	 * Finds the minimum-cost complete tour through the subtree of this task
+	 * using a depth-first search algorithm. Each new minimum-cost is
+	 * propagated to the compute space. The children of a route are the
+	 * cities missing from its visited bitmask. They are tried nearest first, so
+	 * that good tours, and with them tight upper bounds, are found early,
+	 * unless {@link #NEAREST_FIRST} is turned off.
 	 * 
-	 * @return
+	 * The search permutes a single array in place and backtracks, keeping the
+	 * untried children, the rank of the next child to try among the neighbours
+	 * of the node, the route length and the sum of the shortest edges leaving
+	 * the unvisited cities for each depth in arrays which are allocated once
+	 * per task. A child is bounded in constant time before it is entered. The
+	 * stronger, costlier bound of the task's {@link tasks.TspBound TspBound}
+	 * is computed only for nodes with at least
+	 * {@link #STRONG_BOUND_MIN_CITIES} unvisited cities. Nodes with few enough
+	 * unvisited cities are completed by the {@link tasks.TspLeafSolver
+	 * TspLeafSolver} instead of being searched.
+	 * 
+	 * If the computer receives a split request while searching, the search
+	 * stops and every unexplored node is returned as a subtask, along with
+	 * the best tour found so far.
+	 * 
+	 * @return A result containing the minimum-cost tour found (null if there
+	 *         was none) and, if the search was split, the subtasks
 	 */
 
-	private List<City> findMinRoute() {
-		// Stack for DFS
-		Stack<List<City>> s = new Stack<List<City>>();
-		List<City> firstNewRoute = new Vector<City>();
-		List<City> minRoute = null;
-		firstNewRoute.add(this.startCity);
-		s.add(firstNewRoute);
+	private Result<int[]> findMinRoute() {
+		Result<int[]> r = new ResultImpl<int[]>();
+		int n = graph.size();
+		int firstCity = this.route[0];
+		int base = this.route.length - 1;
+		int[] path = new int[n];
+		long[] untried = new long[n];
+		int[] ranks = new int[n];
+		double[] lengths = new double[n];
+		double[] cheapestEdgeSums = new double[n];
+		System.arraycopy(this.route, 0, path, 0, this.route.length);
+		lengths[base] = graph.routeLength(this.route);
+		cheapestEdgeSums[base] = graph.cheapestEdgeSum(graph
+				.unvisited(this.visited));
+
+		// Bitmask of the depths which have untried children
+		long openDepths = 0L;
+		long thisVisited = this.visited;
+		int depth = base;
+		boolean entered = true;
+		int[] minRoute = null;
 		try {
 
-			// Perform DFS until stack is not empty
-			while (!s.isEmpty()) {
-				List<City> thisNewRoute = s.pop();
-				List<City> kids = this.getKids(thisNewRoute);
-				List<City> wholeRoute = clubRoutes(this.currentRoute,
-						thisNewRoute);
+			// Perform DFS until the root of this task has been left
+			while (depth >= base) {
+				double upperBound = this.getLatestUpperBound();
+				if (entered) {
+					entered = false;
+					if (openDepths != 0
+							&& this.getComputer().takeSplitRequest()) {
+						r.setSubTasks(split(path, depth, untried, ranks,
+								openDepths));
+						break;
+					}
+					int lastCity = path[depth];
+					long kids = graph.unvisited(thisVisited);
 
-				/*
-				 * Prunes the tree by checking if lowerbound has exceeded the
-				 * upperbound
-				 */
-				if (this.getLatestUpperBound() == TspShared.INFINITY
-						|| (computeLowerBound(wholeRoute, kids) <= this
-								.getLatestUpperBound())) {
-
-					// Leaf node
-					if (kids.size() == 0) {
-						City lastCity = wholeRoute.get(wholeRoute.size() - 1);
-						City firstCity = wholeRoute.get(0);
-						double newUpperBound = findRouteLength(wholeRoute)
-								+ findLength(lastCity, firstCity);
-						Shared<Double> newShared = new TspShared(newUpperBound);
-						if (this.getComputer().broadcast(newShared)) {
-
-							minRoute = thisNewRoute;
+					/*
+					 * Prunes the tree by checking if lowerbound has exceeded
+					 * the upperbound. The constant-time bound is checked
+					 * again, since the upperbound may have dropped after the
+					 * node was entered.
+					 */
+					boolean pruned = lengths[depth]
+							+ graph.cheapestEdge(lastCity)
+							+ cheapestEdgeSums[depth] > upperBound
+							|| (Long.bitCount(kids) >= STRONG_BOUND_MIN_CITIES && bound
+									.computeLowerBound(graph, firstCity,
+											lastCity, lengths[depth],
+											thisVisited, upperBound) > upperBound);
+
+					/*
+					 * Leaf node, or a node whose subtree is cheaper to solve
+					 * by dynamic programming than to search
+					 */
+					boolean solved = !pruned
+							&& isCheaperToSolve(Long.bitCount(kids));
+					if (solved) {
+						double newUpperBound = TspLeafSolver.getSolver()
+								.completeRoute(graph, path, depth,
+										thisVisited, lengths[depth],
+										upperBound);
+						if (newUpperBound < upperBound) {
+							int[] tour = new int[n];
+							System.arraycopy(path, 0, tour, 0, n);
+							Shared<Double> newShared = new TspShared(
+									newUpperBound, tour);
+							if (this.getComputer().broadcast(getJobId(),
+									newShared)) {
+								minRoute = tour;
+							}
 						}
 					}
-					// Add each non-leaf node to the stack
-					else {
-						for (City kid : kids) {
-							List<City> kidRoute = new Vector<City>(thisNewRoute);
-							kidRoute.add(kid);
-							s.add(kidRoute);
-						}
+					if (pruned || solved) {
+						depth--;
+						thisVisited &= ~(1L << lastCity);
+						continue;
 					}
+					untried[depth] = kids;
+					ranks[depth] = 0;
+					openDepths |= 1L << depth;
+				}
+
+				// Leave the node once all of its children have been tried
+				if (untried[depth] == 0) {
+					openDepths &= ~(1L << depth);
+					thisVisited &= ~(1L << path[depth]);
+					depth--;
+					continue;
+				}
+
+				// Try the next untried child
+				int kid;
+				if (NEAREST_FIRST) {
+					kid = graph.neighbour(path[depth], ranks[depth]++);
+					while ((untried[depth] & (1L << kid)) == 0) {
+						kid = graph.neighbour(path[depth], ranks[depth]++);
+					}
+				} else {
+					kid = Long.numberOfTrailingZeros(untried[depth]);
+				}
+				untried[depth] &= ~(1L << kid);
+				double kidLength = lengths[depth]
+						+ graph.distance(path[depth], kid);
+
+				/*
+				 * Every unvisited city, including the kid, still has to be
+				 * left by at least its shortest edge. Farther children can
+				 * only have longer routes, so they are pruned as well when
+				 * the children are tried nearest first.
+				 */
+				boolean pruned = kidLength + cheapestEdgeSums[depth] > upperBound;
+				if (pruned && NEAREST_FIRST) {
+					untried[depth] = 0;
+				}
+				if (untried[depth] == 0) {
+					openDepths &= ~(1L << depth);
 				}
+				if (pruned) {
+					continue;
+				}
+				path[depth + 1] = kid;
+				lengths[depth + 1] = kidLength;
+				cheapestEdgeSums[depth + 1] = cheapestEdgeSums[depth]
+						- graph.cheapestEdge(kid);
+				thisVisited |= 1L << kid;
+				depth++;
+				entered = true;
 			}
 		} catch (RemoteException e) {
 			e.printStackTrace();
 		}
-		return minRoute;
+		r.setValue(minRoute);
+		return r;
+	}
+
+	/**
+	 * The dynamic program over the subsets of k unvisited cities takes about
+	 * k^2 * 2^k steps, whatever the upper bound. The search of the same
+	 * subtree may take anything up to k! steps, depending on how much of it is
+	 * pruned, so the solver is used only while its cost is small.
+	 * 
+	 * @param k
+	 *            Number of unvisited cities of a node
+	 * @return True if the subtree of the node should be solved by the
+	 *         {@link tasks.TspLeafSolver TspLeafSolver}
+	 */
+	private static boolean isCheaperToSolve(int k) {
+		return k < Integer.SIZE - 1
+				&& (long) k * k * (1L << k) <= LEAF_SOLVER_MAX_COST;
 	}
 
-	// Returns the current upper-bound value from the computer's shared object
+	/*
+	 * Returns the current upper-bound value of the computer, which is
+	 * Double.POSITIVE_INFINITY if no tour has been found yet, and
+	 * Double.NEGATIVE_INFINITY once the job has been cancelled, so that the
+	 * search unwinds at once. The value is read without locking, so it is
+	 * cheap enough for every node.
+	 */
 	private double getLatestUpperBound() {
 		try {
-			TspShared sharedObj = (TspShared) (this.getShared());
-			return sharedObj.get();
+			return this.getComputer().getUpperBound(getJobId());
 		} catch (RemoteException e) {
 			e.printStackTrace();
 		}
-		return 0;
-
-	}
-
-	// Returns children of last node in the passed route
-	private List<City> getKids(List<City> route) {
-		List<City> kidsList = new Vector<City>();
-		for (City c : this.citiesList) {
-			if (!route.contains(c)) {
-				kidsList.add(c);
-			}
-		}
-		return kidsList;
-	}
+		return Double.POSITIVE_INFINITY;
 
-	private List<City> clubRoutes(List<City> currentRoute, List<City> newRoute) {
-		List<City> cities = new Vector<City>(currentRoute);
-		for (int i = 1; i < newRoute.size(); i++) {
-			cities.add(newRoute.get(i));
-		}
-		return cities;
 	}
 
 	/* (non-Javadoc)
@@ -478,10 +582,10 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	 */
 	@Override
 	public void putValues(List<?> values) {
-		this.values=new Vector<List<City>>();
+		this.values=new Vector<int[]>();
 		for(Object o : values){
-			List<City> listOfCities=(List<City>)o;
-			this.values.add(listOfCities);
+			int[] tour=(int[])o;
+			this.values.add(tour);
 		}
 		
 	}
@@ -490,7 +594,7 @@ public class TspTask extends TaskBase<List<TspTask.City>> implements
 	 * @see api.Task#getValues()
 	 */
 	@Override
-	public List<List<TspTask.City>> getValues() {
+	public List<int[]> getValues() {
 		
 		return values;
 	}